@@ -0,0 +1,125 @@
+package com.Loja.benchmark;
+
+import com.Loja.business.dto.out.ReceitaMensalDTO;
+import com.Loja.business.dto.out.ReceitaResponseDTO;
+import com.Loja.business.services.ReceitaLojaService;
+import com.Loja.business.services.ReceitaMensalFechadaService;
+import com.Loja.business.services.ResumoVendaDiarioService;
+import com.Loja.business.services.VersaoConteudoService;
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Venda;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregação de receita e custo pelos serviços de produção: o registro de cada venda no resumo diário
+ * (ResumoVendaDiarioService.registrarVenda) e os relatórios de ReceitaLojaService, que somam as linhas
+ * do resumo. O repositório é substituído por {@link ResumoEmMemoria}, então o custo do banco fica de fora.
+ * <p>
+ * calcularReceitaAntiga reproduz o relatório anterior sobre as mesmas vendas, como referência.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgregacaoVendaBenchmark {
+
+    // As vendas sintéticas começam em 01/01/2025; o período não começa no dia 1 para não passar pela receita fechada
+    private static final LocalDate INICIO = LocalDate.of(2024, 12, 31);
+    private static final LocalDate FIM = LocalDate.of(2025, 1, 31);
+    private static final int ANO = 2025;
+
+    @Param({"1000", "10000"})
+    private int quantidadeVendas;
+
+    @Param({"5"})
+    private int itensPorVenda;
+
+    private List<Venda> vendas;
+    private List<VendaAntiga> vendasAntigas;
+    private ResumoVendaDiarioService resumoService;
+    private ReceitaLojaService receitaService;
+
+    @Setup
+    public void preparar() {
+        vendas = DadosSinteticos.vendas(quantidadeVendas, itensPorVenda);
+        vendasAntigas = vendas.stream().map(VendaAntiga::de).toList();
+
+        ResumoVendaDiarioRepository repositorio = new ResumoEmMemoria().repositorio();
+        VersaoConteudoService versaoConteudoService = new VersaoConteudoService(Duration.ofSeconds(30));
+        MetricasLoja metricas = new MetricasLoja(new SimpleMeterRegistry());
+        // Carência de dez anos: nenhum mês das vendas sintéticas conta como fechado, então o relatório mensal
+        // sempre soma os resumos em vez de devolver os totais fechados guardados em memória
+        ReceitaMensalFechadaService receitaFechadaService = new ReceitaMensalFechadaService(
+                null, metricas, versaoConteudoService, null, Duration.ofDays(3_650), Duration.ofHours(1));
+
+        // Com a mesma carência, registrarVenda também não encontra mês fechado para invalidar
+        resumoService = new ResumoVendaDiarioService(repositorio, receitaFechadaService, versaoConteudoService, 16);
+        receitaService = new ReceitaLojaService(repositorio, null, metricas, receitaFechadaService, null);
+
+        // Preenche o resumo com as vendas, como o fariam as transações de venda
+        vendas.forEach(resumoService::registrarVenda);
+    }
+
+    @Benchmark
+    public void registrarVendasNoResumo(Blackhole blackhole) {
+        for (Venda venda : vendas) {
+            resumoService.registrarVenda(venda);
+        }
+        blackhole.consume(vendas.size());
+    }
+
+    @Benchmark
+    public ReceitaResponseDTO calcularReceita() {
+        return receitaService.calcularReceita(INICIO, FIM);
+    }
+
+    @Benchmark
+    public List<ReceitaMensalDTO> calcularReceitaMensal() {
+        return receitaService.calcularReceitaMensal(ANO);
+    }
+
+    // Cálculo do ReceitaLojaService anterior, com os valores em Double das entidades antigas: soma as vendas
+    // lidas do período em double e converte cada total uma única vez com new BigDecimal(double).
+    // A busca do produto de cada item (uma consulta por item) fica de fora, como o banco nos demais
+    @Benchmark
+    public void calcularReceitaAntiga(Blackhole blackhole) {
+        BigDecimal receitaTotal = new BigDecimal(vendasAntigas.stream()
+                .mapToDouble(VendaAntiga::valorTotal)
+                .sum());
+        BigDecimal custoTotal = new BigDecimal(vendasAntigas.stream()
+                .flatMap(venda -> venda.itens().stream())
+                .mapToDouble(item -> item.precoCompra() * item.quantidade())
+                .sum());
+        BigDecimal lucroTotal = receitaTotal.subtract(custoTotal);
+
+        blackhole.consume(receitaTotal.doubleValue());
+        blackhole.consume(custoTotal.doubleValue());
+        blackhole.consume(lucroTotal.doubleValue());
+    }
+
+    // Venda e item como eram mapeados antes de Dinheiro (colunas DOUBLE)
+    private record VendaAntiga(Double valorTotal, List<ItemAntigo> itens) {
+        static VendaAntiga de(Venda venda) {
+            return new VendaAntiga(venda.getValorTotal().toBigDecimal().doubleValue(),
+                    venda.getItens().stream().map(ItemAntigo::de).toList());
+        }
+    }
+
+    private record ItemAntigo(Double precoCompra, Integer quantidade) {
+        static ItemAntigo de(ItemVenda item) {
+            return new ItemAntigo(item.getProdutoPrecoCompra().toBigDecimal().doubleValue(), item.getQuantidade());
+        }
+    }
+}
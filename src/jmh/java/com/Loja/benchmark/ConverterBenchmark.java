@@ -0,0 +1,57 @@
+package com.Loja.benchmark;
+
+import com.Loja.business.converter.ItemVendaConverter;
+import com.Loja.business.converter.ProdutoConverter;
+import com.Loja.business.converter.VendaConverter;
+import com.Loja.business.dto.out.ItemVendaResponseDTO;
+import com.Loja.business.dto.out.ProdutoResponseDTO;
+import com.Loja.business.dto.out.VendaResponseDTO;
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Produto;
+import com.Loja.infrastructure.entity.Venda;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo e alocação da conversão entidade -> DTO usada em todas as respostas de venda e produto
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int itensPorVenda;
+
+    private final ProdutoConverter produtoConverter = new ProdutoConverter();
+    private final ItemVendaConverter itemVendaConverter = new ItemVendaConverter();
+    private final VendaConverter vendaConverter = new VendaConverter(itemVendaConverter);
+
+    private Produto produto;
+    private ItemVenda item;
+    private Venda venda;
+
+    @Setup
+    public void preparar() {
+        venda = DadosSinteticos.vendas(1, itensPorVenda).get(0);
+        item = venda.getItens().get(0);
+        produto = item.getProduto();
+    }
+
+    @Benchmark
+    public ProdutoResponseDTO produtoParaDTO() {
+        return produtoConverter.toDTO(produto);
+    }
+
+    @Benchmark
+    public ItemVendaResponseDTO itemVendaParaDTO() {
+        return itemVendaConverter.toDTO(item);
+    }
+
+    @Benchmark
+    public VendaResponseDTO vendaParaDTO() {
+        return vendaConverter.toDTO(venda);
+    }
+}
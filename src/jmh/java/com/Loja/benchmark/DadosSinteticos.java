@@ -0,0 +1,73 @@
+package com.Loja.benchmark;
+
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Produto;
+import com.Loja.infrastructure.entity.Venda;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Monta grafos de produtos e vendas em memória, com semente fixa para que as execuções sejam comparáveis
+final class DadosSinteticos {
+
+    private DadosSinteticos() {
+    }
+
+    static List<Produto> produtos(int quantidade) {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        List<Produto> produtos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            long custo = aleatorio.nextLong(100, 50_000);
+            Produto produto = new Produto();
+            produto.setId((long) i + 1);
+            produto.setNome("Produto " + i);
+            produto.setDescricao("Descrição do produto " + i);
+            produto.setPrecoCompra(Dinheiro.deCentavos(custo));
+            produto.setPrecoVenda(Dinheiro.deCentavos(custo + aleatorio.nextLong(1, custo)));
+            produto.setQuantidadeEstoque(aleatorio.nextInt(0, 1_000));
+            produto.setAtivo(true);
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+
+    // Vendas com itensPorVenda itens cada, já com subtotais e valor total calculados como no VendaService
+    static List<Venda> vendas(int quantidade, int itensPorVenda) {
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        List<Produto> produtos = produtos(Math.max(itensPorVenda, 50));
+        LocalDateTime agora = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Venda> vendas = new ArrayList<>(quantidade);
+
+        for (int v = 0; v < quantidade; v++) {
+            Venda venda = new Venda();
+            venda.setId((long) v + 1);
+            venda.setData(agora.plusMinutes(v));
+
+            List<ItemVenda> itens = new ArrayList<>(itensPorVenda);
+            long totalCentavos = 0;
+            for (int i = 0; i < itensPorVenda; i++) {
+                Produto produto = produtos.get(aleatorio.nextInt(produtos.size()));
+                int qtd = aleatorio.nextInt(1, 10);
+
+                ItemVenda item = new ItemVenda();
+                item.setVenda(venda);
+                item.setProduto(produto);
+                item.setProdutoNome(produto.getNome());
+                item.setProdutoPrecoCompra(produto.getPrecoCompra());
+                item.setProdutoPrecoVenda(produto.getPrecoVenda());
+                item.setQuantidade(qtd);
+                item.setPrecoUnitario(produto.getPrecoVenda());
+                item.setSubtotal(produto.getPrecoVenda().multiplicar(qtd));
+                itens.add(item);
+                totalCentavos += item.getSubtotal().centavos();
+            }
+            venda.setItens(itens);
+            venda.setValorTotal(Dinheiro.deCentavos(totalCentavos));
+            vendas.add(venda);
+        }
+        return vendas;
+    }
+}
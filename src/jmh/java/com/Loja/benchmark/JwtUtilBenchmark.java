@@ -0,0 +1,66 @@
+package com.Loja.benchmark;
+
+import com.Loja.infrastructure.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação de token JWT como feita a cada requisição autenticada.
+ * Com tamanhoCache = 0 todo token tem a assinatura verificada de novo (caminho sem cache);
+ * com cache, mede o custo da impressão digital SHA-256 mais a consulta ao Caffeine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final String SEGREDO = "segredo-de-benchmark-com-pelo-menos-256-bits-0123456789";
+    private static final String EMAIL = "cliente@loja.com";
+
+    @Param({"10000", "0"})
+    private long tamanhoCache;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        // Os campos são preenchidos pelo Spring via @Value; aqui são definidos diretamente
+        jwtUtil = new JwtUtil();
+        definirCampo("secretKey", SEGREDO);
+        definirCampo("ttlMaximoCache", Duration.ofMinutes(5));
+        definirCampo("tamanhoMaximoCache", tamanhoCache);
+        Method inicializar = ReflectionUtils.findMethod(JwtUtil.class, "inicializar");
+        ReflectionUtils.makeAccessible(inicializar);
+        ReflectionUtils.invokeMethod(inicializar, jwtUtil);
+
+        token = Jwts.builder()
+                .subject(EMAIL)
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public boolean validarToken() {
+        return jwtUtil.validateToken(token, EMAIL);
+    }
+
+    private void definirCampo(String nome, Object valor) {
+        Field campo = ReflectionUtils.findField(JwtUtil.class, nome);
+        ReflectionUtils.makeAccessible(campo);
+        ReflectionUtils.setField(campo, jwtUtil, valor);
+    }
+}
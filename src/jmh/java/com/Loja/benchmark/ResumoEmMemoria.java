@@ -0,0 +1,124 @@
+package com.Loja.benchmark;
+
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import com.Loja.infrastructure.repository.projection.ReceitaMensalProjection;
+import com.Loja.infrastructure.repository.projection.ReceitaTotaisProjection;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Resumo diário em memória no lugar do banco: acumula as linhas (dia, faixa) como o INSERT ... ON DUPLICATE KEY
+// de acumularVenda e as soma na leitura como somarPorPeriodo e somarPorMes
+final class ResumoEmMemoria {
+
+    private static final int RECEITA = 0;
+    private static final int CUSTO = 1;
+    private static final int ITENS = 2;
+    private static final int VENDAS = 3;
+
+    private final TreeMap<LocalDate, Map<Integer, long[]>> linhas = new TreeMap<>();
+
+    ResumoVendaDiarioRepository repositorio() {
+        return (ResumoVendaDiarioRepository) Proxy.newProxyInstance(
+                ResumoVendaDiarioRepository.class.getClassLoader(),
+                new Class<?>[]{ResumoVendaDiarioRepository.class},
+                (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                    case "acumularVenda" -> {
+                        acumular((LocalDate) argumentos[0], (Integer) argumentos[1],
+                                (Long) argumentos[2], (Long) argumentos[3], (Long) argumentos[4]);
+                        yield null;
+                    }
+                    case "somarPorPeriodo" -> somarPorPeriodo((LocalDate) argumentos[0], (LocalDate) argumentos[1]);
+                    case "somarPorMes" -> somarPorMes((LocalDate) argumentos[0], (LocalDate) argumentos[1]);
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    private void acumular(LocalDate dia, int faixa, long receita, long custo, long itens) {
+        long[] linha = linhas.computeIfAbsent(dia, d -> new HashMap<>()).computeIfAbsent(faixa, f -> new long[4]);
+        linha[RECEITA] += receita;
+        linha[CUSTO] += custo;
+        linha[ITENS] += itens;
+        linha[VENDAS]++;
+    }
+
+    private ReceitaTotaisProjection somarPorPeriodo(LocalDate inicio, LocalDate fim) {
+        long receita = 0;
+        long custo = 0;
+        long quantidade = 0;
+        for (Map<Integer, long[]> faixas : linhas.subMap(inicio, true, fim, true).values()) {
+            for (long[] linha : faixas.values()) {
+                receita += linha[RECEITA];
+                custo += linha[CUSTO];
+                quantidade++;
+            }
+        }
+        return new Totais(receita, custo, quantidade);
+    }
+
+    private List<ReceitaMensalProjection> somarPorMes(LocalDate inicio, LocalDate fim) {
+        TreeMap<Integer, long[]> porMes = new TreeMap<>();
+        linhas.subMap(inicio, true, fim, true).forEach((dia, faixas) -> {
+            long[] mes = porMes.computeIfAbsent(dia.getMonthValue(), m -> new long[5]);
+            for (long[] linha : faixas.values()) {
+                mes[RECEITA] += linha[RECEITA];
+                mes[CUSTO] += linha[CUSTO];
+                mes[VENDAS] += linha[VENDAS];
+                mes[4]++;
+            }
+        });
+        List<ReceitaMensalProjection> meses = new ArrayList<>(porMes.size());
+        porMes.forEach((mes, totais) -> meses.add(new TotaisMes(mes, totais[RECEITA], totais[CUSTO], totais[VENDAS], totais[4])));
+        return meses;
+    }
+
+    private record Totais(Long receitaCentavos, Long custoCentavos, Long linhas) implements ReceitaTotaisProjection {
+        @Override
+        public Long getReceitaCentavos() {
+            return receitaCentavos;
+        }
+
+        @Override
+        public Long getCustoCentavos() {
+            return custoCentavos;
+        }
+
+        @Override
+        public Long getLinhas() {
+            return linhas;
+        }
+    }
+
+    private record TotaisMes(Integer mes, Long receitaCentavos, Long custoCentavos, Long quantidadeVendas,
+                             Long linhas) implements ReceitaMensalProjection {
+        @Override
+        public Integer getMes() {
+            return mes;
+        }
+
+        @Override
+        public Long getReceitaCentavos() {
+            return receitaCentavos;
+        }
+
+        @Override
+        public Long getCustoCentavos() {
+            return custoCentavos;
+        }
+
+        @Override
+        public Long getQuantidadeVendas() {
+            return quantidadeVendas;
+        }
+
+        @Override
+        public Long getLinhas() {
+            return linhas;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.Loja.carga;
+
+import java.util.Arrays;
+
+// Latências (em nanossegundos) de uma operação; cada cliente tem as suas e elas são unidas no fim
+final class AmostrasLatencia {
+
+    private long[] valores = new long[1024];
+    private int tamanho;
+    private long erros;
+
+    void registrar(long nanos, boolean erro) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        valores[tamanho++] = nanos;
+        if (erro) {
+            erros++;
+        }
+    }
+
+    void unir(AmostrasLatencia outras) {
+        if (tamanho + outras.tamanho > valores.length) {
+            valores = Arrays.copyOf(valores, Math.max(valores.length * 2, tamanho + outras.tamanho));
+        }
+        System.arraycopy(outras.valores, 0, valores, tamanho, outras.tamanho);
+        tamanho += outras.tamanho;
+        erros += outras.erros;
+    }
+
+    int quantidade() {
+        return tamanho;
+    }
+
+    long erros() {
+        return erros;
+    }
+
+    // Ordena as amostras; deve ser chamado uma vez antes de consultar os percentis
+    void ordenar() {
+        Arrays.sort(valores, 0, tamanho);
+    }
+
+    double percentilMs(double percentil) {
+        if (tamanho == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil / 100.0 * tamanho) - 1;
+        return valores[Math.max(0, Math.min(indice, tamanho - 1))] / 1_000_000.0;
+    }
+}
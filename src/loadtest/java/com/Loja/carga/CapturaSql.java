@@ -0,0 +1,115 @@
+package com.Loja.carga;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Envolve o DataSource da aplicação para registrar os comandos preparados (SQL e parâmetros)
+ * executados enquanto a captura estiver ligada, permitindo repeti-los depois com EXPLAIN.
+ */
+final class CapturaSql {
+
+    /**
+     * Chamada de um setter de parâmetro (setLong, setTimestamp...), repetida no comando de EXPLAIN
+     */
+    record Parametro(Method setter, Object[] argumentos) {
+
+        void aplicar(PreparedStatement comando) throws SQLException {
+            try {
+                setter.invoke(comando, argumentos);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException erro) {
+                    throw erro;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    record Comando(String sql, List<Parametro> parametros) {
+    }
+
+    private static final Set<String> EXECUCOES = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    private final List<Comando> comandos = new ArrayList<>();
+    private volatile boolean ativa;
+
+    DataSource envolver(DataSource original) {
+        return proxy(DataSource.class, original, (alvo, metodo, argumentos) -> {
+            Object resultado = invocar(original, metodo, argumentos);
+            if (resultado instanceof Connection conexao) {
+                return envolver(conexao);
+            }
+            return resultado;
+        });
+    }
+
+    synchronized void iniciar() {
+        comandos.clear();
+        ativa = true;
+    }
+
+    synchronized List<Comando> encerrar() {
+        ativa = false;
+        return List.copyOf(comandos);
+    }
+
+    private Connection envolver(Connection original) {
+        return proxy(Connection.class, original, (alvo, metodo, argumentos) -> {
+            Object resultado = invocar(original, metodo, argumentos);
+            if (resultado instanceof PreparedStatement comando && argumentos != null
+                    && argumentos[0] instanceof String sql) {
+                return envolver(comando, sql);
+            }
+            return resultado;
+        });
+    }
+
+    private PreparedStatement envolver(PreparedStatement original, String sql) {
+        List<Parametro> parametros = new ArrayList<>();
+        return proxy(PreparedStatement.class, original, (alvo, metodo, argumentos) -> {
+            String nome = metodo.getName();
+            // Setters de parâmetro recebem o índice e o valor; setFetchSize, setMaxRows etc. só um argumento
+            if (nome.startsWith("set") && argumentos != null && argumentos.length >= 2
+                    && argumentos[0] instanceof Integer) {
+                parametros.add(new Parametro(metodo, argumentos.clone()));
+            } else if (nome.equals("clearParameters")) {
+                parametros.clear();
+            } else if (ativa && EXECUCOES.contains(nome) && (argumentos == null || argumentos.length == 0)) {
+                registrar(new Comando(sql, List.copyOf(parametros)));
+            }
+            return invocar(original, metodo, argumentos);
+        });
+    }
+
+    private synchronized void registrar(Comando comando) {
+        if (ativa) {
+            comandos.add(comando);
+        }
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, T original, InvocationHandler tratador) {
+        return (T) Proxy.newProxyInstance(CapturaSql.class.getClassLoader(), new Class<?>[]{tipo}, tratador);
+    }
+}
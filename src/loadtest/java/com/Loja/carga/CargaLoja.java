@@ -0,0 +1,286 @@
+package com.Loja.carga;
+
+import com.Loja.AgendamentosApplication;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga de ponta a ponta: sobe a aplicação com H2 em modo MySQL e um stub do usuario-app,
+ * semeia produtos e vendas históricas e executa uma carga mista de vendas, pesquisas e relatórios,
+ * reportando vazão e latências p50/p99 por operação, comandos SQL por rota e acertos do cache de Produto.
+ *
+ * Configurado por propriedades de sistema (ver a task "carga" no build.gradle):
+ * carga.produtos, carga.vendas, carga.clientes, carga.usuarios, carga.aquecimento, carga.duracao,
+ * carga.atraso-usuario-app, carga.mix (ex.: venda:20,pesquisa:50,receita:20,receita-mensal:10),
+ * carga.perfil e carga.relatorio. Argumentos "--chave=valor" são repassados à aplicação.
+ */
+public final class CargaLoja {
+
+    private static final String MIX_PADRAO = "venda:20,pesquisa:50,receita:20,receita-mensal:10";
+
+    private CargaLoja() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int produtos = Integer.getInteger("carga.produtos", 200);
+        int vendas = Integer.getInteger("carga.vendas", 2_000);
+        int clientes = Integer.getInteger("carga.clientes", 32);
+        int usuarios = Integer.getInteger("carga.usuarios", 100);
+        Duration aquecimento = duracao("carga.aquecimento", "10s");
+        Duration medicao = duracao("carga.duracao", "30s");
+        Duration atrasoUsuarioApp = duracao("carga.atraso-usuario-app", "20ms");
+        Map<Operacao, Integer> mix = lerMix(System.getProperty("carga.mix", MIX_PADRAO));
+
+        byte[] bytesSegredo = new byte[32];
+        new SecureRandom().nextBytes(bytesSegredo);
+        String segredo = HexFormat.of().formatHex(bytesSegredo);
+
+        try (UsuarioAppStub usuarioApp = UsuarioAppStub.iniciar(atrasoUsuarioApp)) {
+            ConfigurableApplicationContext contexto = iniciarAplicacao(usuarioApp.url(), segredo, args);
+            try {
+                String urlBase = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+
+                long inicioSemeadura = System.nanoTime();
+                Semeador semeador = new Semeador(contexto);
+                long[] idsProdutos = semeador.semearProdutos(produtos);
+                semeador.semearVendas(vendas, idsProdutos);
+                System.out.printf("Semeados %d produtos e %d vendas em %d ms%n", produtos, vendas,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioSemeadura));
+
+                Operacao.Alvo alvo = new Operacao.Alvo(urlBase, idsProdutos);
+                List<String> tokens = gerarTokens(segredo, usuarios);
+
+                executar(alvo, tokens, mix, clientes, aquecimento);
+                Map<Operacao, AmostrasLatencia> resultado = executar(alvo, tokens, mix, clientes, medicao);
+
+                String relatorio = formatarRelatorio(resultado, clientes, medicao) + formatarAcessoBanco(contexto);
+                System.out.println(relatorio);
+                String arquivo = System.getProperty("carga.relatorio");
+                if (arquivo != null) {
+                    Path caminho = Path.of(arquivo);
+                    Files.createDirectories(caminho.toAbsolutePath().getParent());
+                    Files.writeString(caminho, relatorio, StandardCharsets.UTF_8);
+                }
+            } finally {
+                SpringApplication.exit(contexto);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacao(String urlUsuarioApp, String segredo, String[] extras) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:carga;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret=" + segredo,
+                "--usuario.url=" + urlUsuarioApp,
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.feign=WARN",
+                "--logging.level.com.Loja.infrastructure.security.UserDetailsServiceImpl=WARN",
+                "--logging.level.com.Loja.infrastructure.security.JwtRequestFilter=WARN"));
+        argumentos.addAll(List.of(extras));
+
+        SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(AgendamentosApplication.class);
+        String perfil = System.getProperty("carga.perfil", "");
+        if (!perfil.isBlank()) {
+            aplicacao.profiles(perfil.split(","));
+        }
+        return aplicacao.run(argumentos.toArray(String[]::new));
+    }
+
+    // Cada cliente virtual repete operações sorteadas pelo mix até o fim da fase, sem pausa entre elas
+    private static Map<Operacao, AmostrasLatencia> executar(Operacao.Alvo alvo, List<String> tokens,
+                                                             Map<Operacao, Integer> mix, int clientes,
+                                                             Duration fase) throws Exception {
+        Operacao[] roleta = montarRoleta(mix);
+        long fim = System.nanoTime() + fase.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            List<Future<Map<Operacao, AmostrasLatencia>>> resultados = new ArrayList<>();
+            for (int c = 0; c < clientes; c++) {
+                String autorizacao = "Bearer " + tokens.get(c % tokens.size());
+                resultados.add(executor.submit(() -> executarCliente(http, alvo, autorizacao, roleta, fim)));
+            }
+
+            Map<Operacao, AmostrasLatencia> total = new EnumMap<>(Operacao.class);
+            for (Future<Map<Operacao, AmostrasLatencia>> resultado : resultados) {
+                resultado.get().forEach((operacao, amostras) ->
+                        total.computeIfAbsent(operacao, o -> new AmostrasLatencia()).unir(amostras));
+            }
+            return total;
+        }
+    }
+
+    private static Map<Operacao, AmostrasLatencia> executarCliente(HttpClient http, Operacao.Alvo alvo,
+                                                                   String autorizacao, Operacao[] roleta, long fim) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Map<Operacao, AmostrasLatencia> amostras = new EnumMap<>(Operacao.class);
+
+        while (System.nanoTime() < fim) {
+            Operacao operacao = roleta[aleatorio.nextInt(roleta.length)];
+            HttpRequest requisicao = operacao.requisicao(alvo, aleatorio)
+                    .header("Authorization", autorizacao)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+
+            long inicio = System.nanoTime();
+            boolean erro;
+            try {
+                erro = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+            } catch (IOException e) {
+                erro = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            amostras.computeIfAbsent(operacao, o -> new AmostrasLatencia())
+                    .registrar(System.nanoTime() - inicio, erro);
+        }
+        return amostras;
+    }
+
+    // Cada operação aparece na roleta tantas vezes quanto o seu peso no mix
+    private static Operacao[] montarRoleta(Map<Operacao, Integer> mix) {
+        List<Operacao> roleta = new ArrayList<>();
+        mix.forEach((operacao, peso) -> {
+            for (int i = 0; i < peso; i++) {
+                roleta.add(operacao);
+            }
+        });
+        if (roleta.isEmpty()) {
+            throw new IllegalArgumentException("O mix de carga precisa de ao menos uma operação com peso positivo");
+        }
+        return roleta.toArray(Operacao[]::new);
+    }
+
+    private static Map<Operacao, Integer> lerMix(String mix) {
+        Map<Operacao, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : mix.split(",")) {
+            String[] nomeEPeso = parte.trim().split(":");
+            pesos.put(Operacao.porNome(nomeEPeso[0].trim()), Integer.parseInt(nomeEPeso[1].trim()));
+        }
+        return pesos;
+    }
+
+    private static List<String> gerarTokens(String segredo, int quantidade) {
+        SecretKey chave = Keys.hmacShaKeyFor(segredo.getBytes(StandardCharsets.UTF_8));
+        Date expiracao = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2));
+        List<String> tokens = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            tokens.add(Jwts.builder()
+                    .subject("cliente" + i + "@carga.local")
+                    .claim("role", "ADMIN")
+                    .expiration(expiracao)
+                    .signWith(chave)
+                    .compact());
+        }
+        return tokens;
+    }
+
+    private static String formatarRelatorio(Map<Operacao, AmostrasLatencia> resultado, int clientes, Duration medicao) {
+        double segundos = medicao.toMillis() / 1000.0;
+        StringWriter texto = new StringWriter();
+        PrintWriter saida = new PrintWriter(texto);
+
+        saida.printf("Carga mista: %d clientes por %s%n", clientes, medicao);
+        saida.printf("%-16s %9s %7s %9s %9s %9s %9s%n", "operação", "reqs", "erros", "req/s", "p50 ms", "p99 ms", "máx ms");
+
+        AmostrasLatencia total = new AmostrasLatencia();
+        resultado.forEach((operacao, amostras) -> {
+            total.unir(amostras);
+            imprimirLinha(saida, operacao.nome(), amostras, segundos);
+        });
+        imprimirLinha(saida, "total", total, segundos);
+        saida.flush();
+        return texto.toString();
+    }
+
+    // Comandos SQL por requisição (aquecimento e medição) e aproveitamento do cache de segundo nível de Produto,
+    // para comparar execuções com e sem cache (--spring.jpa.properties.hibernate.cache.use_second_level_cache=false)
+    private static String formatarAcessoBanco(ConfigurableApplicationContext contexto) {
+        StringWriter texto = new StringWriter();
+        PrintWriter saida = new PrintWriter(texto);
+
+        saida.printf("%n%-7s %-40s %9s %9s %9s%n", "método", "rota", "reqs", "sql/req", "máx");
+        contexto.getBean(MeterRegistry.class).find("loja.http.sql.comandos").summaries().stream()
+                .filter(resumo -> resumo.count() > 0)
+                .sorted(Comparator.comparing((DistributionSummary resumo) -> resumo.getId().getTag("uri"))
+                        .thenComparing(resumo -> resumo.getId().getTag("method")))
+                .forEach(resumo -> saida.printf("%-7s %-40s %9d %9.2f %9.0f%n", resumo.getId().getTag("method"),
+                        resumo.getId().getTag("uri"), resumo.count(), resumo.mean(), resumo.max()));
+
+        // Com o cache desabilitado a região não existe e as estatísticas dela não podem ser pedidas
+        if (!contexto.getEnvironment().getProperty("spring.jpa.properties.hibernate.cache.use_second_level_cache",
+                Boolean.class, false)) {
+            saida.printf("%nCache de Produto: desabilitado%n");
+        } else {
+            CacheRegionStatistics regiao = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class)
+                    .getStatistics().getDomainDataRegionStatistics("produto");
+            long consultas = regiao.getHitCount() + regiao.getMissCount();
+            saida.printf("%nCache de Produto: %d acertos, %d faltas (%.1f%% de acerto), %d entradas gravadas%n",
+                    regiao.getHitCount(), regiao.getMissCount(),
+                    consultas == 0 ? 0.0 : 100.0 * regiao.getHitCount() / consultas, regiao.getPutCount());
+        }
+        saida.flush();
+        return texto.toString();
+    }
+
+    private static void imprimirLinha(PrintWriter saida, String nome, AmostrasLatencia amostras, double segundos) {
+        amostras.ordenar();
+        saida.printf("%-16s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", nome, amostras.quantidade(), amostras.erros(),
+                amostras.quantidade() / segundos, amostras.percentilMs(50), amostras.percentilMs(99),
+                amostras.percentilMs(100));
+    }
+
+    private static Duration duracao(String propriedade, String padrao) {
+        return DurationStyle.detectAndParse(System.getProperty(propriedade, padrao));
+    }
+}
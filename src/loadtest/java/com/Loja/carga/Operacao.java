@@ -0,0 +1,82 @@
+package com.Loja.carga;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Operações que compõem a carga mista; cada uma monta sua requisição com parâmetros sorteados
+enum Operacao {
+
+    VENDA("venda") {
+        @Override
+        HttpRequest.Builder requisicao(Alvo alvo, ThreadLocalRandom aleatorio) {
+            StringBuilder itens = new StringBuilder();
+            int quantidadeItens = aleatorio.nextInt(1, 4);
+            for (int i = 0; i < quantidadeItens; i++) {
+                long produtoId = alvo.idsProdutos()[aleatorio.nextInt(alvo.idsProdutos().length)];
+                itens.append(i == 0 ? "" : ",")
+                        .append("{\"produtoId\":").append(produtoId)
+                        .append(",\"quantidade\":").append(aleatorio.nextInt(1, 4)).append('}');
+            }
+            return HttpRequest.newBuilder(alvo.uri("/admin/loja/vendas"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"itens\":[" + itens + "]}"));
+        }
+    },
+
+    PESQUISA("pesquisa") {
+        @Override
+        HttpRequest.Builder requisicao(Alvo alvo, ThreadLocalRandom aleatorio) {
+            String prefixo = Semeador.PREFIXOS.get(aleatorio.nextInt(Semeador.PREFIXOS.size()));
+            return HttpRequest.newBuilder(alvo.uri("/admin/loja/produtos/pesquisar?nome=" + prefixo
+                    + "&pagina=" + aleatorio.nextInt(3) + "&tamanho=20&ordenacao=precoVenda")).GET();
+        }
+    },
+
+    RECEITA("receita") {
+        @Override
+        HttpRequest.Builder requisicao(Alvo alvo, ThreadLocalRandom aleatorio) {
+            LocalDate fim = LocalDate.now().minusDays(aleatorio.nextInt(0, 180));
+            LocalDate inicio = fim.minusDays(aleatorio.nextInt(1, 180));
+            return HttpRequest.newBuilder(alvo.uri("/admin/loja/receita?inicio=" + inicio + "&fim=" + fim)).GET();
+        }
+    },
+
+    RECEITA_MENSAL("receita-mensal") {
+        @Override
+        HttpRequest.Builder requisicao(Alvo alvo, ThreadLocalRandom aleatorio) {
+            int ano = LocalDate.now().getYear() - aleatorio.nextInt(2);
+            return HttpRequest.newBuilder(alvo.uri("/admin/loja/receita/mensal/" + ano)).GET();
+        }
+    };
+
+    private final String nome;
+
+    Operacao(String nome) {
+        this.nome = nome;
+    }
+
+    String nome() {
+        return nome;
+    }
+
+    abstract HttpRequest.Builder requisicao(Alvo alvo, ThreadLocalRandom aleatorio);
+
+    static Operacao porNome(String nome) {
+        for (Operacao operacao : values()) {
+            if (operacao.nome.equals(nome)) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação desconhecida no mix de carga: " + nome);
+    }
+
+    // Aplicação em teste: URL base e ids dos produtos semeados
+    record Alvo(String urlBase, long[] idsProdutos) {
+
+        URI uri(String caminho) {
+            return URI.create(urlBase + caminho);
+        }
+    }
+}
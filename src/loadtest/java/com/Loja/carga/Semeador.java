@@ -0,0 +1,87 @@
+package com.Loja.carga;
+
+import com.Loja.business.dto.in.ItemVendaRequestDTO;
+import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.business.dto.in.VendaRequestDTO;
+import com.Loja.business.services.ProdutoService;
+import com.Loja.business.services.ResumoVendaDiarioService;
+import com.Loja.business.services.VendaService;
+import com.Loja.infrastructure.entity.Dinheiro;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Popula o banco embarcado com produtos e um histórico de vendas espalhado pelos últimos 12 meses.
+ * As vendas passam pelo VendaService (mesmas regras de estoque e itens) e depois têm a data
+ * retroagida, seguida da reconstrução dos resumos diários usados pelos relatórios.
+ */
+final class Semeador {
+
+    // Primeiras palavras dos nomes dos produtos, usadas também como prefixos na pesquisa
+    static final List<String> PREFIXOS = List.of(
+            "caneta", "caderno", "lapis", "borracha", "mochila", "regua", "estojo", "marcador");
+
+    private static final int ESTOQUE_INICIAL = 10_000_000;
+    private static final int DIAS_HISTORICO = 365;
+
+    private final ProdutoService produtoService;
+    private final VendaService vendaService;
+    private final ResumoVendaDiarioService resumoService;
+    private final JdbcTemplate jdbc;
+    private final SplittableRandom aleatorio = new SplittableRandom(2024);
+
+    Semeador(ApplicationContext contexto) {
+        this.produtoService = contexto.getBean(ProdutoService.class);
+        this.vendaService = contexto.getBean(VendaService.class);
+        this.resumoService = contexto.getBean(ResumoVendaDiarioService.class);
+        this.jdbc = contexto.getBean(JdbcTemplate.class);
+    }
+
+    long[] semearProdutos(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            long custo = aleatorio.nextLong(50, 20_000);
+            produtoService.salvar(ProdutoRequestDTO.builder()
+                    .nome(PREFIXOS.get(i % PREFIXOS.size()) + " modelo " + i)
+                    .descricao("Produto gerado para teste de carga")
+                    .precoCompra(Dinheiro.deCentavos(custo))
+                    .precoVenda(Dinheiro.deCentavos(custo + aleatorio.nextLong(1, custo + 1)))
+                    .quantidadeEstoque(ESTOQUE_INICIAL)
+                    .build());
+        }
+        return jdbc.queryForList("SELECT id FROM produto ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    void semearVendas(int quantidade, long[] idsProdutos) {
+        for (int v = 0; v < quantidade; v++) {
+            List<ItemVendaRequestDTO> itens = new ArrayList<>();
+            int quantidadeItens = aleatorio.nextInt(1, 6);
+            for (int i = 0; i < quantidadeItens; i++) {
+                itens.add(ItemVendaRequestDTO.builder()
+                        .produtoId(idsProdutos[aleatorio.nextInt(idsProdutos.length)])
+                        .quantidade(aleatorio.nextInt(1, 5))
+                        .build());
+            }
+            vendaService.realizarVenda(VendaRequestDTO.builder().itens(itens).build());
+        }
+
+        // Espalha as vendas pelo último ano e reconstrói os resumos a partir das novas datas
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> datas = new ArrayList<>();
+        for (Long id : jdbc.queryForList("SELECT id FROM venda", Long.class)) {
+            LocalDateTime data = agora.minusDays(aleatorio.nextInt(DIAS_HISTORICO))
+                    .minusMinutes(aleatorio.nextInt(24 * 60));
+            datas.add(new Object[]{Timestamp.valueOf(data), id});
+        }
+        jdbc.batchUpdate("UPDATE venda SET data = ? WHERE id = ?", datas);
+        resumoService.reconstruir(LocalDate.now().minusDays(DIAS_HISTORICO), LocalDate.now());
+    }
+}
@@ -0,0 +1,82 @@
+package com.Loja.carga;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Substituto do usuario-app para os testes de carga: responde a /usuario/buscar-por-email
+ * com um usuário ADMIN para qualquer email, após um atraso fixo que simula a latência da rede.
+ */
+final class UsuarioAppStub implements AutoCloseable {
+
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    private UsuarioAppStub(HttpServer servidor, ExecutorService executor) {
+        this.servidor = servidor;
+        this.executor = executor;
+    }
+
+    static UsuarioAppStub iniciar(Duration atraso) throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(executor);
+
+        servidor.createContext("/usuario/buscar-por-email", troca -> {
+            try (troca) {
+                esperar(atraso);
+                String email = parametro(troca.getRequestURI().getRawQuery(), "email");
+                byte[] corpo = ("{\"email\":\"" + email + "\",\"senha\":\"carga\",\"role\":\"ADMIN\"}")
+                        .getBytes(StandardCharsets.UTF_8);
+                troca.getResponseHeaders().add("Content-Type", "application/json");
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            }
+        });
+        servidor.start();
+        return new UsuarioAppStub(servidor, executor);
+    }
+
+    String url() {
+        return "http://localhost:" + servidor.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void esperar(Duration atraso) {
+        if (atraso.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(atraso);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String parametro(String query, String nome) {
+        if (query != null) {
+            for (String par : query.split("&")) {
+                int igual = par.indexOf('=');
+                if (igual > 0 && par.substring(0, igual).equals(nome)) {
+                    return URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+}
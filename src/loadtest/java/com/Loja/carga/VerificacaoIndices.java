@@ -0,0 +1,299 @@
+package com.Loja.carga;
+
+import com.Loja.AgendamentosApplication;
+import com.Loja.infrastructure.entity.Specification.ProdutoSpecification;
+import com.Loja.infrastructure.repository.MovimentacaoEstoqueRepository;
+import com.Loja.infrastructure.repository.ProdutoRepository;
+import com.Loja.infrastructure.repository.ReceitaMensalFechadaRepository;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import com.Loja.infrastructure.repository.VendaRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Confere com EXPLAIN o plano de cada consulta dos repositórios no esquema criado pelas migrações do
+ * Flyway. Sobe a aplicação, semeia produtos e vendas, executa cada consulta em uma transação desfeita
+ * ao final, captura o SQL gerado e repete cada comando com EXPLAIN. Termina com código 1 se algum plano
+ * ler uma tabela inteira.
+ *
+ * Por padrão usa o H2 em modo MySQL (falha se o plano contiver "tableScan"). É só uma aproximação: o
+ * otimizador do H2 não é o do MySQL, e um plano aprovado aqui não garante o uso do índice em produção.
+ * Com indices.url, indices.usuario e indices.senha confere um MySQL local (falha se alguma linha do
+ * EXPLAIN tiver type = ALL); use um banco descartável, pois ele é migrado e semeado.
+ *
+ * Fora da verificação: findByAtivoTrue, que lê o catálogo ativo inteiro (a varredura é o plano correto),
+ * e acumularVenda, um INSERT pela chave primária.
+ */
+public final class VerificacaoIndices {
+
+    private static final Pattern INDICE_H2 = Pattern.compile("/\\* public\\.([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+    private record Caso(String nome, Runnable execucao) {
+    }
+
+    private VerificacaoIndices() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int produtos = Integer.getInteger("indices.produtos", 500);
+        int vendas = Integer.getInteger("indices.vendas", 3_000);
+        String url = System.getProperty("indices.url");
+
+        CapturaSql captura = new CapturaSql();
+        ConfigurableApplicationContext contexto = iniciarAplicacao(url, captura, args);
+        boolean aprovado;
+        try {
+            Semeador semeador = new Semeador(contexto);
+            semeador.semearVendas(vendas, semeador.semearProdutos(produtos));
+
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            boolean mysql = url != null;
+            if (mysql) {
+                jdbc.execute("ANALYZE TABLE produto, venda, item_venda, movimentacao, resumo_venda_diario");
+            } else {
+                jdbc.execute("ANALYZE");
+            }
+
+            TransactionTemplate transacao = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+            DataSource dataSource = contexto.getBean(DataSource.class);
+            // Sem limpar o cache de segundo nível, leituras por id de casos anteriores não chegariam ao banco
+            Cache cache = contexto.getBean(EntityManagerFactory.class).getCache();
+            aprovado = true;
+            for (Caso caso : casos(contexto, jdbc)) {
+                cache.evictAll();
+                captura.iniciar();
+                try {
+                    transacao.executeWithoutResult(status -> {
+                        caso.execucao().run();
+                        status.setRollbackOnly();
+                    });
+                } finally {
+                    aprovado &= verificar(caso.nome(), captura.encerrar(), dataSource, mysql);
+                }
+            }
+        } finally {
+            SpringApplication.exit(contexto);
+        }
+
+        System.out.println(aprovado ? "Todas as consultas usam índice" : "Há consultas sem índice");
+        System.exit(aprovado ? 0 : 1);
+    }
+
+    private static List<Caso> casos(ConfigurableApplicationContext contexto, JdbcTemplate jdbc) {
+        VendaRepository vendas = contexto.getBean(VendaRepository.class);
+        ProdutoRepository produtos = contexto.getBean(ProdutoRepository.class);
+        MovimentacaoEstoqueRepository movimentacoes = contexto.getBean(MovimentacaoEstoqueRepository.class);
+        ResumoVendaDiarioRepository resumos = contexto.getBean(ResumoVendaDiarioRepository.class);
+        ReceitaMensalFechadaRepository fechadas = contexto.getBean(ReceitaMensalFechadaRepository.class);
+
+        Long idProduto = jdbc.queryForObject("SELECT MIN(id) FROM produto", Long.class);
+        Long idVenda = jdbc.queryForObject("SELECT MAX(id) FROM venda", Long.class);
+        List<Long> idsMovimentacoes = jdbc.queryForList("SELECT id FROM movimentacao ORDER BY id LIMIT 10", Long.class);
+
+        // Uma semana de vendas, como nas consultas do dia a dia; o relatório mensal lê um mês de resumos
+        LocalDateTime fim = LocalDateTime.now();
+        LocalDateTime inicio = fim.minusDays(7);
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicioMes = hoje.withDayOfMonth(1);
+
+        return List.of(
+                new Caso("VendaRepository.findById", () -> vendas.findById(idVenda)),
+                new Caso("VendaRepository.findByDataBetween", () -> vendas.findByDataBetween(inicio, fim)),
+                new Caso("VendaRepository.countByDataBetween", () -> vendas.countByDataBetween(inicio, fim)),
+                new Caso("VendaRepository.findMesesComVendasPorAno", () -> vendas.findMesesComVendasPorAno(hoje.getYear())),
+                new Caso("VendaRepository.buscarPaginaPorPeriodo",
+                        () -> vendas.buscarPaginaPorPeriodo(inicio, fim, inicio, 0L, Limit.of(50))),
+                new Caso("VendaRepository.buscarComItensPorIds",
+                        () -> vendas.buscarComItensPorIds(List.of(idVenda - 1, idVenda))),
+
+                new Caso("ProdutoRepository.findById", () -> produtos.findById(idProduto)),
+                new Caso("ProdutoRepository.findByIdAndAtivoTrue", () -> produtos.findByIdAndAtivoTrue(idProduto)),
+                new Caso("ProdutoRepository.findByIdIncludingDeleted", () -> produtos.findByIdIncludingDeleted(idProduto)),
+                new Caso("ProdutoRepository.buscarResumoAtivoPorId", () -> produtos.buscarResumoAtivoPorId(idProduto)),
+                new Caso("ProdutoRepository.listarResumoAtivos",
+                        () -> produtos.listarResumoAtivos(PageRequest.of(0, 20, Sort.by("id")))),
+                new Caso("ProdutoRepository.pesquisarResumo", () -> produtos.pesquisarResumo(
+                        ProdutoSpecification.comNomeIniciadoPor(Semeador.PREFIXOS.get(0) + " modelo 1"),
+                        PageRequest.of(0, 20, Sort.by("nomeBusca", "id")))),
+                new Caso("ProdutoRepository.buscarAtivosPorIds", () -> produtos.buscarAtivosPorIds(List.of(idProduto))),
+                new Caso("ProdutoRepository.consultarEstoque", () -> produtos.consultarEstoque(idProduto)),
+                new Caso("ProdutoRepository.consultarSaldoDisponivel", () -> produtos.consultarSaldoDisponivel(idProduto)),
+                new Caso("ProdutoRepository.baixarEstoque", () -> produtos.baixarEstoque(idProduto, 1)),
+                new Caso("ProdutoRepository.reporEstoque", () -> produtos.reporEstoque(idProduto, 1)),
+                new Caso("ProdutoRepository.aplicarBaixaPendente", () -> produtos.aplicarBaixaPendente(idProduto, 1)),
+
+                new Caso("MovimentacaoEstoqueRepository.findByProdutoId", () -> movimentacoes.findByProdutoId(idProduto)),
+                new Caso("MovimentacaoEstoqueRepository.findByDataBetween",
+                        () -> movimentacoes.findByDataBetween(fim.minusHours(1), fim)),
+                new Caso("MovimentacaoEstoqueRepository.buscarPendentes", () -> movimentacoes.buscarPendentes(Limit.of(100))),
+                new Caso("MovimentacaoEstoqueRepository.marcarAplicadas", () -> movimentacoes.marcarAplicadas(idsMovimentacoes)),
+
+                new Caso("ResumoVendaDiarioRepository.somarPorPeriodo", () -> resumos.somarPorPeriodo(inicioMes, hoje)),
+                new Caso("ResumoVendaDiarioRepository.somarPorMes",
+                        () -> resumos.somarPorMes(inicioMes, inicioMes.plusMonths(1).minusDays(1))),
+                new Caso("ResumoVendaDiarioRepository.deletarPorPeriodo", () -> resumos.deletarPorPeriodo(hoje, hoje)),
+                new Caso("ResumoVendaDiarioRepository.recalcularPorPeriodo", () -> {
+                    resumos.deletarPorPeriodo(hoje, hoje);
+                    resumos.recalcularPorPeriodo(hoje.atStartOfDay(), hoje.plusDays(1).atStartOfDay());
+                }),
+
+                new Caso("ReceitaMensalFechadaRepository.buscarPorPeriodo",
+                        () -> fechadas.buscarPorPeriodo(inicioMes.minusYears(1), inicioMes)),
+                new Caso("ReceitaMensalFechadaRepository.deletarPorPeriodo",
+                        () -> fechadas.deletarPorPeriodo(inicioMes.minusYears(1), inicioMes)));
+    }
+
+    private static boolean verificar(String caso, List<CapturaSql.Comando> comandos, DataSource dataSource,
+                                     boolean mysql) throws SQLException {
+        // Comandos repetidos (ex.: o mesmo SELECT por id para cada linha) são explicados uma vez
+        Map<String, CapturaSql.Comando> consultas = new LinkedHashMap<>();
+        comandos.stream()
+                .filter(VerificacaoIndices::leTabelas)
+                .forEach(comando -> consultas.putIfAbsent(comando.sql(), comando));
+        if (consultas.isEmpty()) {
+            System.out.printf("FALHA %s: nenhuma consulta capturada%n", caso);
+            return false;
+        }
+
+        boolean aprovado = true;
+        try (Connection conexao = dataSource.getConnection()) {
+            for (CapturaSql.Comando consulta : consultas.values()) {
+                List<String> problemas = new ArrayList<>();
+                Set<String> indices = mysql
+                        ? explicarMysql(conexao, consulta, problemas)
+                        : explicarH2(conexao, consulta, problemas);
+                if (problemas.isEmpty()) {
+                    System.out.printf("ok    %-55s %s%n", caso, String.join(", ", indices));
+                } else {
+                    aprovado = false;
+                    System.out.printf("FALHA %-55s %s%n      %s%n", caso, String.join("; ", problemas), consulta.sql());
+                }
+            }
+        }
+        return aprovado;
+    }
+
+    // SELECT, UPDATE, DELETE e INSERT ... SELECT; ignora INSERT ... VALUES e as tabelas de sequência do Hibernate
+    private static boolean leTabelas(CapturaSql.Comando comando) {
+        String sql = comando.sql().strip().toLowerCase(Locale.ROOT);
+        if (sql.contains("_seq")) {
+            return false;
+        }
+        return sql.startsWith("select") || sql.startsWith("update") || sql.startsWith("delete")
+                || (sql.startsWith("insert") && sql.contains(" select "));
+    }
+
+    private static Set<String> explicarH2(Connection conexao, CapturaSql.Comando consulta,
+                                          List<String> problemas) throws SQLException {
+        StringBuilder plano = new StringBuilder();
+        try (PreparedStatement explain = preparar(conexao, consulta);
+             ResultSet linhas = explain.executeQuery()) {
+            while (linhas.next()) {
+                plano.append(linhas.getString(1));
+            }
+        }
+
+        Set<String> indices = new LinkedHashSet<>();
+        Matcher nomes = INDICE_H2.matcher(plano);
+        while (nomes.find()) {
+            String nome = nomes.group(1);
+            if (nome.toLowerCase(Locale.ROOT).endsWith(".tablescan")) {
+                problemas.add("varredura de " + nome.substring(0, nome.indexOf('.')));
+            } else {
+                indices.add(nome);
+            }
+        }
+        return indices;
+    }
+
+    private static Set<String> explicarMysql(Connection conexao, CapturaSql.Comando consulta,
+                                             List<String> problemas) throws SQLException {
+        Set<String> indices = new LinkedHashSet<>();
+        try (PreparedStatement explain = preparar(conexao, consulta);
+             ResultSet linhas = explain.executeQuery()) {
+            while (linhas.next()) {
+                String tabela = linhas.getString("table");
+                if (tabela == null) {
+                    continue;
+                }
+                if ("ALL".equalsIgnoreCase(linhas.getString("type"))) {
+                    problemas.add("varredura de " + tabela);
+                } else if (linhas.getString("key") != null) {
+                    indices.add(tabela + "." + linhas.getString("key"));
+                }
+            }
+        }
+        return indices;
+    }
+
+    private static PreparedStatement preparar(Connection conexao, CapturaSql.Comando consulta) throws SQLException {
+        PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + consulta.sql());
+        for (CapturaSql.Parametro parametro : consulta.parametros()) {
+            parametro.aplicar(explain);
+        }
+        return explain;
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacao(String url, CapturaSql captura, String[] extras) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--jwt.secret=verificacao-de-indices-verificacao-de-indices",
+                "--usuario.url=http://localhost:9",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.web=WARN"));
+        if (url == null) {
+            argumentos.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:indices;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.flyway.locations=classpath:db/migration,classpath:db/h2",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        } else {
+            argumentos.addAll(List.of(
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + System.getProperty("indices.usuario", "root"),
+                    "--spring.datasource.password=" + System.getProperty("indices.senha", "")));
+        }
+        argumentos.addAll(List.of(extras));
+
+        // O proxy de captura é aplicado ao DataSource antes de o Flyway e o Hibernate o receberem
+        BeanPostProcessor envolverDataSource = new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nome) {
+                return bean instanceof DataSource dataSource ? captura.envolver(dataSource) : bean;
+            }
+        };
+        return new SpringApplicationBuilder(AgendamentosApplication.class)
+                .initializers(contexto -> contexto.getBeanFactory().addBeanPostProcessor(envolverDataSource))
+                .run(argumentos.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,4 @@
+-- Apenas para o banco embarcado (H2): com o H2Dialect o Hibernate usa sequências de verdade
+-- no lugar das tabelas item_venda_seq/movimentacao_seq criadas para o MySQL
+CREATE SEQUENCE IF NOT EXISTS item_venda_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS movimentacao_seq START WITH 1 INCREMENT BY 50;
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Component;
 public class ItemVendaConverter {
     public ItemVendaResponseDTO toDTO(ItemVenda item) {
         ItemVendaResponseDTO dto = new ItemVendaResponseDTO();
-        dto.setProdutoNome(item.getProduto().getNome());
+        dto.setProdutoNome(item.getProdutoNome()); // Nome gravado na venda, sem carregar o produto
         dto.setQuantidade(item.getQuantidade());
         dto.setPrecoUnitario(item.getPrecoUnitario());
         dto.setSubtotal(item.getSubtotal());
@@ -1,6 +1,7 @@
 package com.Loja.business.dto.in;
 
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 @Getter
@@ -13,8 +14,8 @@ public class ItemVendaRequestDTO {
     private Long produtoId;
     private String produtoNome;
     private Integer quantidade;
-    private Double precoUnitario;
-    private Double subtotal;
+    private Dinheiro precoUnitario;
+    private Dinheiro subtotal;
 
     // Getters e Setters
 }
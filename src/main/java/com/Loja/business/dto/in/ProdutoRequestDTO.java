@@ -1,5 +1,6 @@
 package com.Loja.business.dto.in;
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 @Getter
@@ -11,8 +12,8 @@ public class ProdutoRequestDTO {
     private Long id;
     private String nome;
     private String descricao;
-    private Double precoCompra;
-    private Double precoVenda;
+    private Dinheiro precoCompra;
+    private Dinheiro precoVenda;
     private Integer quantidadeEstoque;
 
 }
@@ -1,5 +1,6 @@
 package com.Loja.business.dto.in;
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 import java.time.LocalDate;
@@ -11,9 +12,9 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @Builder
 public class ReceitaRequestDTO {
-    private Double receitaTotal;
-    private Double custoTotal;
-    private Double lucroTotal;
+    private Dinheiro receitaTotal;
+    private Dinheiro custoTotal;
+    private Dinheiro lucroTotal;
     private LocalDate dataInicio;
     private LocalDate dataFim;
 
@@ -1,6 +1,7 @@
 package com.Loja.business.dto.in;
 
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -14,7 +15,7 @@ import java.util.List;
 public class VendaRequestDTO {
     private Long id;
     private LocalDateTime data;
-    private Double valorTotal;
+    private Dinheiro valorTotal;
     private List<ItemVendaRequestDTO> itens;
 
     // Getters e Setters
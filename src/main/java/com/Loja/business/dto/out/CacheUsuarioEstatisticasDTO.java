@@ -0,0 +1,21 @@
+package com.Loja.business.dto.out;
+
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CacheUsuarioEstatisticasDTO {
+
+    private long acertos;
+    private long faltas;
+    private double taxaAcerto;
+    private long carregamentosComFalha;
+    private long remocoes;
+    private long tamanho;
+
+    // Getters e Setters
+}
@@ -1,6 +1,7 @@
 package com.Loja.business.dto.out;
 
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 @Getter
@@ -12,8 +13,8 @@ public class ItemVendaResponseDTO {
 
     private String produtoNome;
     private Integer quantidade;
-    private Double precoUnitario;
-    private Double subtotal;
+    private Dinheiro precoUnitario;
+    private Dinheiro subtotal;
 
     // Getters e Setters
 }
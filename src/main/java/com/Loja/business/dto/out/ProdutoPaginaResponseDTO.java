@@ -0,0 +1,22 @@
+package com.Loja.business.dto.out;
+
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProdutoPaginaResponseDTO {
+
+    private List<ProdutoResponseDTO> produtos;
+    private int pagina;
+    private int tamanho;
+    // Indica se existe uma próxima página (calculado sem COUNT)
+    private boolean temProxima;
+
+    // Getters e Setters
+}
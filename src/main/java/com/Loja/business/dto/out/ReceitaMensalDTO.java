@@ -1,5 +1,6 @@
 package com.Loja.business.dto.out;
 
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.*;
 
 import java.time.YearMonth;
@@ -11,9 +12,9 @@ import java.time.YearMonth;
 @Builder
 public class ReceitaMensalDTO {
     private YearMonth mes;
-    private Double receitaTotal;
-    private Double custoTotal;
-    private Double lucroTotal;
+    private Dinheiro receitaTotal;
+    private Dinheiro custoTotal;
+    private Dinheiro lucroTotal;
 
     // Constructor, Getters e Setters
 }
\ No newline at end of file
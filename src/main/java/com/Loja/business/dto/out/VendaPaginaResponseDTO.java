@@ -0,0 +1,22 @@
+package com.Loja.business.dto.out;
+
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VendaPaginaResponseDTO {
+
+    private List<VendaResponseDTO> vendas;
+    // Cursor da próxima página (nulos quando não há mais vendas no período)
+    private LocalDateTime proximaData;
+    private Long proximoId;
+
+    // Getters e Setters
+}
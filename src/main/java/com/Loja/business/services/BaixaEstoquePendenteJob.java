@@ -0,0 +1,41 @@
+package com.Loja.business.services;
+
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Aplica em lote, ao estoque dos produtos, as baixas reservadas pelo ReservaEstoqueService
+@Component
+@RequiredArgsConstructor
+public class BaixaEstoquePendenteJob {
+
+    private static final int TAMANHO_LOTE = 500;
+
+    private final ProdutoService produtoService;
+
+    @Value("${loja.estoque.reserva-memoria.habilitada:false}")
+    private boolean habilitada;
+
+    // Aplica o que ficou pendente de uma execução anterior, mesmo com o modo desabilitado
+    @EventListener(ApplicationReadyEvent.class)
+    public void aplicarPendentesAoIniciar() {
+        aplicarPendentes();
+    }
+
+    @Scheduled(fixedDelayString = "${loja.estoque.reserva-memoria.intervalo-flush-ms:200}")
+    public void aplicarPendentesPeriodicamente() {
+        if (habilitada) {
+            aplicarPendentes();
+        }
+    }
+
+    private void aplicarPendentes() {
+        while (produtoService.aplicarBaixasPendentes(TAMANHO_LOTE) == TAMANHO_LOTE) {
+            // Continua enquanto houver lotes completos pendentes
+        }
+    }
+}
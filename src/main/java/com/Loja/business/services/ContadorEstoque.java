@@ -0,0 +1,187 @@
+package com.Loja.business.services;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saldo de estoque de um produto dividido em faixas atômicas independentes.
+ * Cada reserva tenta primeiro uma única faixa (sem disputa entre threads que
+ * caem em faixas diferentes) e só recorre ao caminho com trava quando precisa
+ * juntar saldo de várias faixas. O saldo total nunca fica negativo.
+ * <p>
+ * Cada contador é uma geração do saldo do produto: depois de descartado, as
+ * vendas que reservaram dele não podem mais ser confirmadas, e o contador
+ * seguinte só é criado quando as confirmações já iniciadas terminam.
+ */
+final class ContadorEstoque {
+
+    private final AtomicInteger[] faixas;
+    private final ReentrantLock trava = new ReentrantLock();
+    // Vendas entre o beforeCommit e o fim da transação, cujas baixas pendentes podem ainda não estar visíveis
+    private final AtomicInteger confirmando = new AtomicInteger();
+    private volatile boolean descartado;
+
+    ContadorEstoque(long saldoInicial, int quantidadeFaixas) {
+        this.faixas = new AtomicInteger[Math.max(1, quantidadeFaixas)];
+
+        // Distribui o saldo igualmente, com o resto nas primeiras faixas
+        int saldo = (int) Math.max(0, Math.min(Integer.MAX_VALUE, saldoInicial));
+        int base = saldo / faixas.length;
+        int resto = saldo % faixas.length;
+        for (int i = 0; i < faixas.length; i++) {
+            faixas[i] = new AtomicInteger(base + (i < resto ? 1 : 0));
+        }
+    }
+
+    /**
+     * Retira a quantidade do saldo se houver disponível
+     * @param quantidade Quantidade a reservar
+     * @return true se a reserva foi feita, false se o saldo for insuficiente
+     */
+    boolean reservar(int quantidade) {
+        if (tentarRetirar(faixaAleatoria(), quantidade)) {
+            return true;
+        }
+        return reservarEntreFaixas(quantidade);
+    }
+
+    /**
+     * Devolve ao saldo uma quantidade reservada ou uma entrada de estoque
+     * @param quantidade Quantidade a devolver
+     */
+    void devolver(int quantidade) {
+        faixaAleatoria().addAndGet(quantidade);
+    }
+
+    /**
+     * Retira uma quantidade mesmo sem saldo suficiente (usado para desfazer
+     * entradas). O excedente fica negativo numa faixa e bloqueia novas reservas
+     * até ser compensado.
+     * @param quantidade Quantidade a retirar
+     */
+    void retirarForcado(int quantidade) {
+        trava.lock();
+        try {
+            int faltante = quantidade;
+            for (AtomicInteger faixa : faixas) {
+                faltante -= retirarAte(faixa, faltante);
+                if (faltante == 0) {
+                    return;
+                }
+            }
+            faixas[0].addAndGet(-faltante);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Marca o início da confirmação de uma venda que reservou deste contador.
+     * O contador é incrementado antes de conferir o descarte: ou a venda vê o
+     * descarte e desiste, ou quem recria o contador espera por ela
+     * @return false se o contador já foi descartado (a venda deve ser desfeita)
+     */
+    boolean iniciarConfirmacao() {
+        confirmando.incrementAndGet();
+        if (descartado) {
+            confirmando.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void concluirConfirmacao() {
+        confirmando.decrementAndGet();
+    }
+
+    void descartar() {
+        descartado = true;
+    }
+
+    boolean isDescartado() {
+        return descartado;
+    }
+
+    /**
+     * Espera as vendas em confirmação terminarem, para que todas as baixas
+     * pendentes confirmadas deste contador estejam visíveis no banco
+     * @param limite Tempo máximo de espera
+     * @return false se o tempo acabou antes
+     */
+    boolean aguardarConfirmacoes(Duration limite) {
+        long prazo = System.nanoTime() + limite.toNanos();
+        while (confirmando.get() > 0) {
+            if (System.nanoTime() - prazo > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    long saldo() {
+        long total = 0;
+        for (AtomicInteger faixa : faixas) {
+            total += faixa.get();
+        }
+        return total;
+    }
+
+    // Junta o saldo de várias faixas; devolve tudo se o total não for suficiente
+    private boolean reservarEntreFaixas(int quantidade) {
+        trava.lock();
+        try {
+            int[] retirado = new int[faixas.length];
+            int faltante = quantidade;
+
+            for (int i = 0; i < faixas.length && faltante > 0; i++) {
+                retirado[i] = retirarAte(faixas[i], faltante);
+                faltante -= retirado[i];
+            }
+
+            if (faltante == 0) {
+                return true;
+            }
+
+            for (int i = 0; i < faixas.length; i++) {
+                if (retirado[i] > 0) {
+                    faixas[i].addAndGet(retirado[i]);
+                }
+            }
+            return false;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private AtomicInteger faixaAleatoria() {
+        return faixas[ThreadLocalRandom.current().nextInt(faixas.length)];
+    }
+
+    private static boolean tentarRetirar(AtomicInteger faixa, int quantidade) {
+        int atual;
+        do {
+            atual = faixa.get();
+            if (atual < quantidade) {
+                return false;
+            }
+        } while (!faixa.compareAndSet(atual, atual - quantidade));
+        return true;
+    }
+
+    private static int retirarAte(AtomicInteger faixa, int maximo) {
+        int atual;
+        int retirar;
+        do {
+            atual = faixa.get();
+            retirar = Math.min(atual, maximo);
+            if (retirar <= 0) {
+                return 0;
+            }
+        } while (!faixa.compareAndSet(atual, atual - retirar));
+        return retirar;
+    }
+}
@@ -0,0 +1,37 @@
+package com.Loja.business.services;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Escreve eventos no formato text/event-stream (server-sent events) diretamente na saída da resposta
+final class EscritorSse {
+
+    private static final byte[] FIM_EVENTO = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream saida;
+    private final ObjectMapper objectMapper;
+
+    EscritorSse(OutputStream saida, ObjectMapper objectMapper) {
+        this.saida = saida;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Envia um evento com os dados serializados em JSON (uma única linha "data:")
+     * @param evento Nome do evento
+     * @param dados Objeto a ser serializado
+     * @throws IOException Se a escrita falhar (por exemplo, cliente desconectado)
+     */
+    void enviar(String evento, Object dados) throws IOException {
+        saida.write(("event: " + evento + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+        saida.write(objectMapper.writeValueAsBytes(dados));
+        saida.write(FIM_EVENTO);
+        // Libera cada evento: o cliente renderiza aos poucos e, como a escrita é bloqueante,
+        // quem produz os eventos espera enquanto o cliente não consome (backpressure)
+        saida.flush();
+    }
+}
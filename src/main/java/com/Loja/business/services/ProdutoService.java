@@ -3,41 +3,72 @@ package com.Loja.business.services;
 
 import com.Loja.business.converter.ProdutoConverter;
 import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.business.dto.out.ProdutoPaginaResponseDTO;
 import com.Loja.business.dto.out.ProdutoResponseDTO;
 import com.Loja.infrastructure.entity.MovimentacaoEstoque;
 import com.Loja.infrastructure.entity.Produto;
 import com.Loja.infrastructure.entity.Specification.ProdutoFiltro;
 import com.Loja.infrastructure.entity.Specification.ProdutoSpecification;
 import com.Loja.infrastructure.enums.TipoMovimentacao;
+import com.Loja.infrastructure.exceptions.ConcurrencyException;
 import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
 import com.Loja.infrastructure.repository.MovimentacaoEstoqueRepository;
 import com.Loja.infrastructure.repository.ProdutoRepository;
+import com.Loja.infrastructure.repository.projection.MovimentacaoPendenteProjection;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProdutoService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProdutoService.class);
+
+    private static final int TAMANHO_PADRAO_PAGINA = 20;
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+    // Campos aceitos em "ordenacao" e o atributo da entidade correspondente
+    private static final Map<String, String> CAMPOS_ORDENACAO = Map.of(
+            "nome", "nomeBusca",
+            "precoVenda", "precoVenda",
+            "precoCompra", "precoCompra",
+            "quantidadeEstoque", "quantidadeEstoque");
+
     private final ProdutoRepository produtoRepository;
     private final ProdutoConverter produtoConverter;
     private final MovimentacaoEstoqueRepository movimentacaoRepository;
+    private final ReservaEstoqueService reservaEstoqueService;
+    private final VersaoConteudoService versaoConteudoService;
 
     /**
-     * Lista todos os produtos ativos
-     * @return Lista de ProdutoDTO
+     * Lista os produtos ativos, uma página por vez
+     * @param pagina Número da página (começa em 0)
+     * @param tamanho Quantidade de produtos por página
+     * @return Página de ProdutoDTO
+     * @throws ConflitException Se a página ou o tamanho forem inválidos
      */
     @Transactional(readOnly = true)
-    public List<ProdutoResponseDTO> listarTodos() {
-        return produtoRepository.findByAtivoTrue().stream()
-                .map(produtoConverter::toDTO)
-                .collect(Collectors.toList());
+    public ProdutoPaginaResponseDTO listarTodos(Integer pagina, Integer tamanho) {
+        Pageable pageable = criarPaginacao(pagina, tamanho, null, null);
+        return toPaginaDTO(produtoRepository.listarResumoAtivos(pageable));
     }
 
     /**
@@ -48,9 +79,8 @@ public class ProdutoService {
      */
     @Transactional(readOnly = true)
     public ProdutoResponseDTO buscarPorId(Long id) {
-        Produto produto = produtoRepository.findByIdAndAtivoTrue(id)
+        return produtoRepository.buscarResumoAtivoPorId(id)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado ou inativo"));
-        return produtoConverter.toDTO(produto);
     }
 
     /**
@@ -62,7 +92,17 @@ public class ProdutoService {
     public ProdutoResponseDTO salvar(ProdutoRequestDTO dto) {
         Produto produto = produtoConverter.toEntity(dto);
         produto.setAtivo(true); // Garante que novo produto seja ativo
+        if (dto.getId() != null) {
+            // O merge compara com o estado atual: lido do banco, não do cache com estoque possivelmente defasado
+            produtoRepository.invalidarCache(dto.getId());
+        }
         produto = produtoRepository.save(produto);
+        versaoConteudoService.alterarCatalogo();
+
+        // O estoque pode ter sido sobrescrito: o contador em memória é recriado a partir do banco
+        if (dto.getId() != null) {
+            reservaEstoqueService.descartarAposCommit(dto.getId());
+        }
         return produtoConverter.toDTO(produto);
     }
 
@@ -73,6 +113,7 @@ public class ProdutoService {
      */
     @Transactional
     public void deletar(Long id) {
+        produtoRepository.invalidarCache(id);
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado"));
 
@@ -82,6 +123,8 @@ public class ProdutoService {
 
         produto.setAtivo(false);
         produtoRepository.save(produto);
+        reservaEstoqueService.descartarAposCommit(id);
+        versaoConteudoService.alterarCatalogo();
     }
 
     /**
@@ -96,13 +139,18 @@ public class ProdutoService {
             throw new ConflitException("Quantidade deve ser maior que zero");
         }
 
-        Produto produto = produtoRepository.findByIdAndAtivoTrue(produtoId)
+        Produto produto = produtoRepository.findById(produtoId)
+                .filter(Produto::isAtivo)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado ou inativo"));
 
-        produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() + quantidade);
-        produtoRepository.save(produto);
+        // Soma no próprio banco para não perder entradas concorrentes
+        if (produtoRepository.reporEstoque(produtoId, quantidade) == 0) {
+            throw new ConcurrencyException("Produto foi inativado durante a atualização do estoque");
+        }
 
         registrarMovimentacao(produto, quantidade, TipoMovimentacao.ENTRADA);
+        reservaEstoqueService.registrarEntrada(produtoId, quantidade);
+        versaoConteudoService.alterarCatalogo();
     }
 
     /**
@@ -110,6 +158,7 @@ public class ProdutoService {
      * @param produtoId ID do produto
      * @param quantidade Quantidade a remover
      * @throws ConflitException Se o produto não for encontrado, estiver inativo ou não tiver estoque suficiente
+     * @throws ConcurrencyException Se outra operação consumiu o estoque entre a leitura e a baixa
      */
     @Transactional
     public void removerEstoque(Long produtoId, Integer quantidade) {
@@ -117,17 +166,126 @@ public class ProdutoService {
             throw new ConflitException("Quantidade deve ser maior que zero");
         }
 
-        Produto produto = produtoRepository.findByIdAndAtivoTrue(produtoId)
+        Produto produto = produtoRepository.findById(produtoId)
+                .filter(Produto::isAtivo)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado ou inativo"));
 
-        if (produto.getQuantidadeEstoque() < quantidade) {
-            throw new ConflitException("Quantidade em estoque insuficiente");
+        removerEstoqueEmLote(Map.of(produto, quantidade));
+    }
+
+    /**
+     * Remove do estoque as quantidades de vários produtos já carregados,
+     * registrando as movimentações em lote
+     * @param quantidades Quantidade a remover de cada produto
+     * @throws ConflitException Se alguma quantidade for inválida ou não houver estoque suficiente
+     * @throws ConcurrencyException Se outra operação consumiu o estoque entre a leitura e a baixa
+     */
+    @Transactional
+    public void removerEstoqueEmLote(Map<Produto, Integer> quantidades) {
+        if (quantidades.values().stream().anyMatch(quantidade -> quantidade <= 0)) {
+            throw new ConflitException("Quantidade deve ser maior que zero");
         }
 
-        produto.setQuantidadeEstoque(produto.getQuantidadeEstoque() - quantidade);
-        produtoRepository.save(produto);
+        List<MovimentacaoEstoque> movimentacoes = new ArrayList<>(quantidades.size());
+
+        if (reservaEstoqueService.isHabilitada()) {
+            // Reserva em memória; a baixa no produto é aplicada depois pelo BaixaEstoquePendenteJob
+            reservaEstoqueService.reservar(quantidades);
+            quantidades.forEach((produto, quantidade) -> {
+                MovimentacaoEstoque movimentacao = criarMovimentacao(produto, quantidade, TipoMovimentacao.SAIDA);
+                movimentacao.setPendente(true);
+                movimentacoes.add(movimentacao);
+            });
+        } else {
+            // Atualiza sempre na ordem do ID para que vendas concorrentes não travem umas às outras
+            quantidades.entrySet().stream()
+                    .sorted(Comparator.comparing(entry -> entry.getKey().getId()))
+                    .forEach(entry -> {
+                        baixarEstoque(entry.getKey(), entry.getValue());
+                        movimentacoes.add(criarMovimentacao(entry.getKey(), entry.getValue(), TipoMovimentacao.SAIDA));
+                    });
+        }
+
+        movimentacaoRepository.saveAll(movimentacoes);
+        versaoConteudoService.alterarCatalogo();
+    }
+
+    /**
+     * Aplica ao estoque dos produtos um lote de baixas reservadas em memória,
+     * somando as quantidades de cada produto em um único UPDATE
+     * @param limite Quantidade máxima de movimentações pendentes processadas
+     * @return Quantidade de movimentações aplicadas
+     */
+    @Transactional
+    public int aplicarBaixasPendentes(int limite) {
+        List<MovimentacaoPendenteProjection> pendentes = movimentacaoRepository.buscarPendentes(Limit.of(limite));
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
 
-        registrarMovimentacao(produto, quantidade, TipoMovimentacao.SAIDA);
+        Map<Long, Integer> baixasPorProduto = pendentes.stream()
+                .collect(Collectors.groupingBy(MovimentacaoPendenteProjection::getProdutoId, TreeMap::new,
+                        Collectors.summingInt(MovimentacaoPendenteProjection::getQuantidade)));
+        baixasPorProduto.forEach(this::aplicarBaixaPendente);
+
+        movimentacaoRepository.marcarAplicadas(pendentes.stream()
+                .map(MovimentacaoPendenteProjection::getId)
+                .collect(Collectors.toList()));
+        versaoConteudoService.alterarCatalogo();
+        return pendentes.size();
+    }
+
+    // A reserva em memória garante o saldo das baixas pendentes; se mesmo assim faltar estoque (por exemplo, um estoque
+    // sobrescrito para menos do que já estava reservado), baixa o que houver e registra a falta em vez de gravar negativo
+    private void aplicarBaixaPendente(Long produtoId, Integer quantidade) {
+        if (produtoRepository.aplicarBaixaPendente(produtoId, quantidade) > 0) {
+            return;
+        }
+        int disponivel = produtoRepository.consultarEstoque(produtoId).orElse(0);
+        int aplicada = Math.max(0, Math.min(disponivel, quantidade));
+        if (aplicada > 0) {
+            produtoRepository.aplicarBaixaPendente(produtoId, aplicada);
+        }
+        log.error("Baixas pendentes do produto {} acima do estoque: {} reservadas, {} em estoque, faltaram {}",
+                produtoId, quantidade, disponivel, quantidade - aplicada);
+    }
+
+    /**
+     * Baixa o estoque com um UPDATE condicional, impedindo venda acima do disponível
+     * mesmo com várias vendas simultâneas do mesmo produto
+     * @param produto Produto lido na transação atual (usado apenas para validação prévia)
+     * @param quantidade Quantidade a remover
+     */
+    private void baixarEstoque(Produto produto, Integer quantidade) {
+        if (!possuiEstoque(produto, quantidade)) {
+            throw new EstoqueInsuficienteException("Quantidade em estoque insuficiente");
+        }
+
+        // A baixa remove o produto do cache, com ou sem sucesso; a próxima leitura traz o estoque gravado
+        if (produtoRepository.baixarEstoque(produto.getId(), quantidade) == 0) {
+            // O estoque lido (possivelmente do cache) era maior que o gravado
+            if (estoqueGravado(produto.getId()) < quantidade) {
+                throw new EstoqueInsuficienteException("Quantidade em estoque insuficiente");
+            }
+            // A leitura indicava estoque suficiente, mas outra transação o consumiu antes da baixa
+            throw new ConcurrencyException("Estoque do produto " + produto.getNome()
+                    + " foi alterado por outra operação. Tente novamente");
+        }
+    }
+
+    /**
+     * Verifica se há estoque para a quantidade pedida. O produto pode ter vindo do cache de segundo nível
+     * com o estoque desatualizado, por isso uma falta só é confirmada depois de consultar o banco
+     * @param produto Produto lido na transação atual
+     * @param quantidade Quantidade pedida
+     * @return true se o estoque atende a quantidade
+     */
+    public boolean possuiEstoque(Produto produto, int quantidade) {
+        return produto.getQuantidadeEstoque() >= quantidade || estoqueGravado(produto.getId()) >= quantidade;
+    }
+
+    private int estoqueGravado(Long produtoId) {
+        return produtoRepository.consultarEstoque(produtoId).orElse(0);
     }
 
     /**
@@ -137,12 +295,16 @@ public class ProdutoService {
      * @param tipo Tipo de movimentação (ENTRADA/SAIDA)
      */
     private void registrarMovimentacao(Produto produto, Integer quantidade, TipoMovimentacao tipo) {
+        movimentacaoRepository.save(criarMovimentacao(produto, quantidade, tipo));
+    }
+
+    private MovimentacaoEstoque criarMovimentacao(Produto produto, Integer quantidade, TipoMovimentacao tipo) {
         MovimentacaoEstoque movimentacao = new MovimentacaoEstoque();
         movimentacao.setProduto(produto);
         movimentacao.setQuantidade(quantidade);
         movimentacao.setTipo(tipo);
         movimentacao.setData(LocalDateTime.now());
-        movimentacaoRepository.save(movimentacao);
+        return movimentacao;
     }
 
     /**
@@ -152,6 +314,7 @@ public class ProdutoService {
      */
     @Transactional
     public void reativarProduto(Long id) {
+        produtoRepository.invalidarCache(id);
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado"));
 
@@ -161,6 +324,7 @@ public class ProdutoService {
 
         produto.setAtivo(true);
         produtoRepository.save(produto);
+        versaoConteudoService.alterarCatalogo();
     }
 
     /**
@@ -172,6 +336,8 @@ public class ProdutoService {
      */
     @Transactional
     public ProdutoResponseDTO atualizarProduto(Long id, ProdutoRequestDTO produtoDTO) {
+        // Lido do banco para que a resposta traga o estoque atual, e não o que estiver no cache
+        produtoRepository.invalidarCache(id);
         Produto produtoExistente = produtoRepository.findById(id)
                 .orElseThrow(() -> new ConflitException("Produto não encontrado com ID: " + id));
 
@@ -182,19 +348,22 @@ public class ProdutoService {
         produtoExistente.setPrecoCompra(produtoDTO.getPrecoCompra()); // Adicionado para atualização
 
         produtoRepository.save(produtoExistente);
+        versaoConteudoService.alterarCatalogo();
         return produtoConverter.toDTO(produtoExistente);
     }
 
     /**
-     * Pesquisa produtos com base em filtros
-     * @param filtro Objeto com os critérios de pesquisa
-     * @return Lista de ProdutoDTO que atendem aos filtros
+     * Pesquisa produtos com base em filtros, paginada e ordenada
+     * @param filtro Objeto com os critérios de pesquisa, paginação e ordenação
+     * @return Página de ProdutoDTO que atendem aos filtros
+     * @throws ConflitException Se a paginação ou a ordenação forem inválidas
      */
-    public List<ProdutoResponseDTO> pesquisarProdutos(ProdutoFiltro filtro) {
+    @Transactional(readOnly = true)
+    public ProdutoPaginaResponseDTO pesquisarProdutos(ProdutoFiltro filtro) {
         Specification<Produto> spec = Specification.where(null);
 
         if (filtro.getNome() != null && !filtro.getNome().isEmpty()) {
-            spec = spec.and(ProdutoSpecification.comNomeSemelhante(filtro.getNome()));
+            spec = spec.and(ProdutoSpecification.comNomeIniciadoPor(filtro.getNome()));
         }
 
         if (filtro.getPrecoMin() != null) {
@@ -209,9 +378,47 @@ public class ProdutoService {
             spec = spec.and(ProdutoSpecification.comEstoqueDisponivel());
         }
 
-        return produtoRepository.findAll(spec).stream()
-                .map(produtoConverter::toDTO)
-                .collect(Collectors.toList());
+        Pageable pageable = criarPaginacao(filtro.getPagina(), filtro.getTamanho(),
+                filtro.getOrdenacao(), filtro.getDirecao());
+        return toPaginaDTO(produtoRepository.pesquisarResumo(spec, pageable));
+    }
+
+    private Pageable criarPaginacao(Integer pagina, Integer tamanho, String ordenacao, String direcao) {
+        int numeroPagina = pagina != null ? pagina : 0;
+        int tamanhoPagina = tamanho != null ? tamanho : TAMANHO_PADRAO_PAGINA;
+        if (numeroPagina < 0) {
+            throw new ConflitException("Página deve ser maior ou igual a zero");
+        }
+        if (tamanhoPagina <= 0 || tamanhoPagina > TAMANHO_MAXIMO_PAGINA) {
+            throw new ConflitException("Tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+        }
+
+        Sort.Direction sentido = Sort.Direction.ASC;
+        if (direcao != null && !direcao.isBlank()) {
+            sentido = Sort.Direction.fromOptionalString(direcao)
+                    .orElseThrow(() -> new ConflitException("Direção de ordenação inválida: " + direcao));
+        }
+
+        Sort sort = Sort.unsorted();
+        if (ordenacao != null && !ordenacao.isBlank()) {
+            String campo = CAMPOS_ORDENACAO.get(ordenacao);
+            if (campo == null) {
+                throw new ConflitException("Campo de ordenação inválido: " + ordenacao);
+            }
+            sort = Sort.by(sentido, campo);
+        }
+
+        // O id como desempate mantém a ordem estável entre páginas
+        return PageRequest.of(numeroPagina, tamanhoPagina, sort.and(Sort.by(Sort.Direction.ASC, "id")));
+    }
+
+    private ProdutoPaginaResponseDTO toPaginaDTO(Slice<ProdutoResponseDTO> slice) {
+        return ProdutoPaginaResponseDTO.builder()
+                .produtos(slice.getContent())
+                .pagina(slice.getNumber())
+                .tamanho(slice.getSize())
+                .temProxima(slice.hasNext())
+                .build();
     }
 }
 
@@ -3,22 +3,28 @@ package com.Loja.business.services;
 
 import com.Loja.business.dto.out.ReceitaResponseDTO;
 import com.Loja.business.dto.out.ReceitaMensalDTO;
-import com.Loja.infrastructure.entity.ItemVenda;
-import com.Loja.infrastructure.entity.Produto;
-import com.Loja.infrastructure.entity.Venda;
+import com.Loja.business.services.ReceitaMensalFechadaService.TotaisMes;
+import com.Loja.infrastructure.entity.Dinheiro;
 import com.Loja.infrastructure.exceptions.ConflitException;
-import com.Loja.infrastructure.exceptions.ResourceNotFoundException;
-import com.Loja.infrastructure.repository.ProdutoRepository;
-import com.Loja.infrastructure.repository.VendaRepository;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import com.Loja.infrastructure.repository.projection.ReceitaMensalProjection;
+import com.Loja.infrastructure.repository.projection.ReceitaTotaisProjection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -26,8 +32,11 @@ import java.util.stream.IntStream;
 @RequiredArgsConstructor
 public class ReceitaLojaService {
 
-    private final VendaRepository vendaRepository;
-    private final ProdutoRepository produtoRepository;
+    private final ResumoVendaDiarioRepository resumoRepository;
+    private final ObjectMapper objectMapper;
+    private final MetricasLoja metricas;
+    private final ReceitaMensalFechadaService receitaFechadaService;
+    private final TransactionTemplate transacao;
 
     /**
      * Calcula a receita total, custo total e lucro total em um período específico
@@ -35,40 +44,50 @@ public class ReceitaLojaService {
      * @param fim Data final do período
      * @return ReceitaDTO contendo os valores calculados
      */
+    @Transactional(readOnly = true)
     public ReceitaResponseDTO calcularReceita(LocalDate inicio, LocalDate fim) {
         // Valida as datas fornecidas
         validateDates(inicio, fim);
 
-        // Converte as datas LocalDate para LocalDateTime para incluir todo o dia
-        LocalDateTime inicioDateTime = inicio.atStartOfDay();
-        LocalDateTime fimDateTime = fim.atTime(23, 59, 59);
+        Timer.Sample amostra = metricas.iniciar();
+        long receitaCentavos = 0;
+        long custoCentavos = 0;
+        long linhasLidas = 0;
 
-        // Busca todas as vendas no período especificado
-        List<Venda> vendas = vendaRepository.findByDataBetween(inicioDateTime, fimDateTime);
-
-        // Se não houver vendas, retorna DTO com valores zerados
-        if (vendas.isEmpty()) {
-            return buildReceitaDTO(0.0, 0.0, 0.0, inicio, fim);
+        // Meses inteiros e já fechados no início do período vêm de receita fechada; o restante é somado
+        // dos resumos diários, sem reler as vendas
+        LocalDate inicioAberto = inicio;
+        if (inicio.getDayOfMonth() == 1) {
+            YearMonth primeiro = YearMonth.from(inicio);
+            YearMonth ultimo = anterior(YearMonth.from(fim.plusDays(1)), receitaFechadaService.primeiroMesAberto());
+            if (!ultimo.isBefore(primeiro)) {
+                for (TotaisMes totais : totaisFechados(primeiro, ultimo).values()) {
+                    receitaCentavos = Math.addExact(receitaCentavos, totais.receitaCentavos());
+                    custoCentavos = Math.addExact(custoCentavos, totais.custoCentavos());
+                }
+                inicioAberto = ultimo.plusMonths(1).atDay(1);
+            }
         }
-
-        try {
-            // Usando BigDecimal para cálculos precisos (evitar problemas de arredondamento)
-            BigDecimal receitaTotal = new BigDecimal(calculateTotalRevenue(vendas));
-            BigDecimal custoTotal = new BigDecimal(calculateTotalCost(vendas));
-            BigDecimal lucroTotal = receitaTotal.subtract(custoTotal);
-
-            // Constrói e retorna o DTO com os valores calculados
-            return buildReceitaDTO(
-                    receitaTotal.doubleValue(),
-                    custoTotal.doubleValue(),
-                    lucroTotal.doubleValue(),
-                    inicio,
-                    fim
-            );
-        } catch (Exception ex) {
-            // Lança exceção em caso de erro nos cálculos
-            throw new ConflitException("Erro ao calcular receita: " + ex.getMessage(), ex);
+        if (!inicioAberto.isAfter(fim)) {
+            ReceitaTotaisProjection totais = resumoRepository.somarPorPeriodo(inicioAberto, fim);
+            receitaCentavos = Math.addExact(receitaCentavos, totais.getReceitaCentavos());
+            custoCentavos = Math.addExact(custoCentavos, totais.getCustoCentavos());
+            linhasLidas = totais.getLinhas();
         }
+        metricas.registrarRelatorio("periodo", amostra, linhasLidas);
+
+        // Os totais vêm em centavos, então o lucro é uma subtração exata de inteiros
+        Dinheiro receitaTotal = Dinheiro.deCentavos(receitaCentavos);
+        Dinheiro custoTotal = Dinheiro.deCentavos(custoCentavos);
+
+        // Constrói e retorna o DTO com os valores calculados
+        return buildReceitaDTO(
+                receitaTotal,
+                custoTotal,
+                receitaTotal.subtrair(custoTotal),
+                inicio,
+                fim
+        );
     }
 
     /**
@@ -88,76 +107,122 @@ public class ReceitaLojaService {
     }
 
     /**
-     * Calcula a receita total de uma lista de vendas
-     * @param vendas Lista de vendas
-     * @return Valor total da receita
+     * Calcula a receita mensal para todos os meses de um ano específico
+     * @param ano Ano para cálculo
+     * @return Lista de ReceitaMensalDTO com os dados de cada mês
      */
-    private double calculateTotalRevenue(List<Venda> vendas) {
-        return vendas.stream()
-                .mapToDouble(Venda::getValorTotal) // Extrai o valor total de cada venda
-                .sum(); // Soma todos os valores
+    @Transactional(readOnly = true)
+    public List<ReceitaMensalDTO> calcularReceitaMensal(int ano) {
+        validarAno(ano);
+
+        Timer.Sample amostra = metricas.iniciar();
+        YearMonth janeiro = YearMonth.of(ano, 1);
+        YearMonth primeiroAberto = receitaFechadaService.primeiroMesAberto();
+        Map<YearMonth, TotaisMes> totaisPorMes = new HashMap<>();
+
+        // Meses já fechados do ano vêm de receita fechada (memória ou tabela), calculados só na primeira vez
+        if (primeiroAberto.isAfter(janeiro)) {
+            totaisPorMes.putAll(totaisFechados(janeiro, anterior(YearMonth.of(ano + 1, 1), primeiroAberto)));
+        }
+
+        // Meses ainda abertos: somados dos resumos diários em uma única consulta
+        long linhasLidas = 0;
+        if (primeiroAberto.getYear() <= ano) {
+            YearMonth inicioAberto = primeiroAberto.isAfter(janeiro) ? primeiroAberto : janeiro;
+            List<ReceitaMensalProjection> meses = resumoRepository.somarPorMes(inicioAberto.atDay(1), LocalDate.of(ano, 12, 31));
+            for (ReceitaMensalProjection totais : meses) {
+                totaisPorMes.put(YearMonth.of(ano, totais.getMes()),
+                        new TotaisMes(totais.getReceitaCentavos(), totais.getCustoCentavos()));
+                linhasLidas += totais.getLinhas();
+            }
+        }
+        metricas.registrarRelatorio("mensal", amostra, linhasLidas);
+
+        // Monta os 12 meses, preenchendo com zero os meses sem vendas
+        return IntStream.rangeClosed(1, 12)
+                .mapToObj(mes -> {
+                    YearMonth anoMes = YearMonth.of(ano, mes); // Ano e mês combinados
+                    TotaisMes totais = totaisPorMes.getOrDefault(anoMes, TotaisMes.ZERO);
+
+                    Dinheiro receitaTotal = Dinheiro.deCentavos(totais.receitaCentavos());
+                    Dinheiro custoTotal = Dinheiro.deCentavos(totais.custoCentavos());
+
+                    return new ReceitaMensalDTO(
+                            anoMes,
+                            receitaTotal,
+                            custoTotal,
+                            receitaTotal.subtrair(custoTotal)
+                    );
+                })
+                .collect(Collectors.toList()); // Coleta todos os resultados em uma lista
     }
 
     /**
-     * Calcula o custo total de uma lista de vendas
-     * @param vendas Lista de vendas
-     * @return Valor total do custo
+     * Totais dos meses fechados do intervalo; os que ainda não foram calculados são somados
+     * dos resumos diários, uma consulta por ano
+     * @param primeiro Primeiro mês
+     * @param ultimo Último mês, já fechado
+     * @return Totais de cada mês do intervalo
      */
-    private double calculateTotalCost(List<Venda> vendas) {
-        return vendas.stream()
-                .flatMap(venda -> venda.getItens().stream()) // Transforma cada venda em stream de itens
-                .mapToDouble(this::calculateItemCost) // Calcula o custo de cada item
-                .sum(); // Soma todos os custos
+    private Map<YearMonth, TotaisMes> totaisFechados(YearMonth primeiro, YearMonth ultimo) {
+        return receitaFechadaService.obter(primeiro, ultimo, ausentes -> {
+            Map<YearMonth, TotaisMes> calculados = new HashMap<>();
+            ausentes.stream()
+                    .collect(Collectors.groupingBy(YearMonth::getYear, TreeMap::new, Collectors.toList()))
+                    .forEach((ano, meses) -> {
+                        Timer.Sample amostra = metricas.iniciar();
+                        List<ReceitaMensalProjection> totais = resumoRepository.somarPorMes(
+                                meses.get(0).atDay(1), meses.get(meses.size() - 1).atEndOfMonth());
+                        metricas.registrarRelatorio("fechamento", amostra,
+                                totais.stream().mapToLong(ReceitaMensalProjection::getLinhas).sum());
+
+                        // A consulta cobre do primeiro ao último mês ausente; só os ausentes são aproveitados
+                        meses.forEach(mes -> calculados.put(mes, TotaisMes.ZERO));
+                        totais.stream()
+                                .filter(mes -> calculados.containsKey(YearMonth.of(ano, mes.getMes())))
+                                .forEach(mes -> calculados.put(YearMonth.of(ano, mes.getMes()),
+                                        new TotaisMes(mes.getReceitaCentavos(), mes.getCustoCentavos())));
+                    });
+            return calculados;
+        });
     }
 
-    /**
-     * Calcula o custo de um item de venda específico
-     * @param item Item de venda
-     * @return Custo do item (preço de compra × quantidade)
-     * @throws ResourceNotFoundException Se o produto não for encontrado
-     */
-    private double calculateItemCost(ItemVenda item) {
-        Long produtoId = item.getProduto().getId();
-        // Busca o produto (incluindo deletados)
-        Optional<Produto> produtoOpt = produtoRepository.findByIdIncludingDeleted(produtoId);
-
-        // Calcula o custo ou lança exceção se produto não existir
-        return produtoOpt.map(produto -> produto.getPrecoCompra() * item.getQuantidade())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        String.format("Produto com ID %d não encontrado (mesmo incluindo deletados)", produtoId)
-                ));
+    // Último mês anterior a ambos os limites
+    private static YearMonth anterior(YearMonth limite, YearMonth outroLimite) {
+        return (limite.isBefore(outroLimite) ? limite : outroLimite).minusMonths(1);
     }
 
     /**
-     * Calcula a receita mensal para todos os meses de um ano específico
+     * Valida o ano dos relatórios. Chamado pelo controller antes de a resposta transmitida
+     * começar, para que um ano inválido não chegue com status 200
      * @param ano Ano para cálculo
-     * @return Lista de ReceitaMensalDTO com os dados de cada mês
+     * @throws ConflitException Se o ano for inválido
      */
-    public List<ReceitaMensalDTO> calcularReceitaMensal(int ano) {
-        // Validação básica do ano
+    public void validarAno(int ano) {
         if (ano < 2000 || ano > LocalDate.now().getYear() + 1) {
             throw new ConflitException("Ano inválido");
         }
+    }
 
-        // Gera uma stream de meses (1 a 12) e processa cada um
-        return IntStream.rangeClosed(1, 12)
-                .mapToObj(mes -> {
-                    // Define o intervalo do mês (do dia 1 ao último dia)
-                    LocalDate inicioMes = LocalDate.of(ano, mes, 1);
-                    LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
-
-                    // Calcula a receita para o mês
-                    ReceitaResponseDTO receita = calcularReceita(inicioMes, fimMes);
+    /**
+     * Transmite a receita mensal do ano como server-sent events: um evento "receita-mensal" por mês,
+     * enviado assim que o mês é calculado, seguido do evento "fim". Cada mês é lido em uma transação
+     * curta, encerrada antes da escrita, para não segurar uma conexão enquanto o cliente lê
+     * @param ano Ano para cálculo
+     * @param saida Stream de saída da resposta
+     * @throws IOException Se a escrita na saída falhar
+     */
+    public void transmitirReceitaMensal(int ano, OutputStream saida) throws IOException {
+        validarAno(ano);
+        TransactionTemplate leitura = new TransactionTemplate(transacao.getTransactionManager());
+        leitura.setReadOnly(true);
 
-                    // Cria o DTO mensal com os resultados
-                    return new ReceitaMensalDTO(
-                            YearMonth.of(ano, mes), // Ano e mês combinados
-                            receita.getReceitaTotal(),
-                            receita.getCustoTotal(),
-                            receita.getLucroTotal()
-                    );
-                })
-                .collect(Collectors.toList()); // Coleta todos os resultados em uma lista
+        EscritorSse eventos = new EscritorSse(saida, objectMapper);
+        for (int mes = 1; mes <= 12; mes++) {
+            int mesAtual = mes;
+            eventos.enviar("receita-mensal", leitura.execute(status -> consultarReceitaDoMes(ano, mesAtual)));
+        }
+        eventos.enviar("fim", Map.of("meses", 12));
     }
 
     /**
@@ -166,11 +231,9 @@ public class ReceitaLojaService {
      * @param mes Mês para consulta (1-12)
      * @return ReceitaMensalDTO com os dados do mês
      */
+    @Transactional(readOnly = true)
     public ReceitaMensalDTO consultarReceitaDoMes(int ano, int mes) {
-        // Validação do ano
-        if (ano < 2000 || ano > LocalDate.now().getYear() + 1) {
-            throw new ConflitException("Ano inválido");
-        }
+        validarAno(ano);
         // Validação do mês
         if (mes < 1 || mes > 12) {
             throw new ConflitException("Mês inválido. Deve ser entre 1 e 12");
@@ -193,8 +256,8 @@ public class ReceitaLojaService {
     }
 
 
-    private ReceitaResponseDTO buildReceitaDTO(double receitaTotal, double custoTotal,
-                                               double lucroTotal, LocalDate inicio, LocalDate fim) {
+    private ReceitaResponseDTO buildReceitaDTO(Dinheiro receitaTotal, Dinheiro custoTotal,
+                                               Dinheiro lucroTotal, LocalDate inicio, LocalDate fim) {
         ReceitaResponseDTO dto = new ReceitaResponseDTO();
         dto.setReceitaTotal(receitaTotal);
         dto.setCustoTotal(custoTotal);
@@ -0,0 +1,199 @@
+package com.Loja.business.services;
+
+
+import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.Loja.infrastructure.repository.ReceitaMensalFechadaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Totais de receita dos meses já encerrados.
+ * <p>
+ * As vendas de um mês fechado não mudam mais, então seus totais são calculados
+ * uma única vez a partir dos resumos diários, gravados em receita_mensal_fechada
+ * (sobrevivem a reinícios) e mantidos em memória. Um mês só é considerado fechado
+ * depois de uma carência após a virada, para incluir vendas gravadas no limite.
+ * <p>
+ * Correções retroativas devem chamar {@link #invalidar(LocalDate, LocalDate)}.
+ * A cópia em memória é local a cada instância e expira para que invalidações
+ * feitas em outra instância também cheguem a esta.
+ */
+@Service
+public class ReceitaMensalFechadaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceitaMensalFechadaService.class);
+
+    // Totais de um mês, em centavos
+    public record TotaisMes(long receitaCentavos, long custoCentavos) {
+        public static final TotaisMes ZERO = new TotaisMes(0, 0);
+    }
+
+    private final ReceitaMensalFechadaRepository repository;
+    private final MetricasLoja metricas;
+    private final VersaoConteudoService versaoConteudoService;
+    private final TransactionTemplate novaTransacao;
+    private final Duration carencia;
+    private final Cache<YearMonth, TotaisMes> memoria;
+
+    // Incrementada a cada invalidação: valores lidos ou calculados antes dela não são guardados
+    private final AtomicLong geracao = new AtomicLong();
+
+    public ReceitaMensalFechadaService(ReceitaMensalFechadaRepository repository,
+                                       MetricasLoja metricas,
+                                       VersaoConteudoService versaoConteudoService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${loja.receita.fechada.carencia:1d}") Duration carencia,
+                                       @Value("${loja.receita.fechada.ttl-memoria:1h}") Duration ttlMemoria) {
+        this.repository = repository;
+        this.metricas = metricas;
+        this.versaoConteudoService = versaoConteudoService;
+        // Lê e grava no banco primário em transação própria, mesmo quando o relatório lê da réplica
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.carencia = carencia;
+        this.memoria = Caffeine.newBuilder()
+                .expireAfterWrite(ttlMemoria)
+                .maximumSize(1_200) // Cem anos de meses
+                .build();
+    }
+
+    // Primeiro mês ainda aberto: o corrente, ou o anterior enquanto durar a carência após a virada
+    public YearMonth primeiroMesAberto() {
+        return YearMonth.from(LocalDateTime.now().minus(carencia));
+    }
+
+    /**
+     * Totais dos meses fechados do intervalo: da memória, da tabela ou, para os que ainda
+     * não foram calculados, da função informada, que passam a ser gravados
+     * @param inicio Primeiro mês
+     * @param fim Último mês, anterior a {@link #primeiroMesAberto()}
+     * @param calcular Calcula os totais dos meses pedidos a partir dos resumos diários
+     * @return Totais de todos os meses do intervalo, em ordem
+     */
+    public Map<YearMonth, TotaisMes> obter(YearMonth inicio, YearMonth fim,
+                                           Function<List<YearMonth>, Map<YearMonth, TotaisMes>> calcular) {
+        if (!fim.isBefore(primeiroMesAberto())) {
+            throw new IllegalArgumentException("Mês ainda não fechado: " + fim);
+        }
+        long geracaoLida = geracao.get();
+        List<YearMonth> meses = new ArrayList<>();
+        for (YearMonth mes = inicio; !mes.isAfter(fim); mes = mes.plusMonths(1)) {
+            meses.add(mes);
+        }
+
+        Map<YearMonth, TotaisMes> totais = new TreeMap<>(memoria.getAllPresent(meses));
+        int daMemoria = totais.size();
+        metricas.registrarMesesFechados("memoria", daMemoria);
+        if (daMemoria == meses.size()) {
+            return totais;
+        }
+
+        // Os meses que faltam são lidos e calculados no primário: logo após uma correção a réplica ainda pode
+        // ter os resumos antigos, que seriam gravados como definitivos e voltariam à memória
+        List<YearMonth> faltantes = meses.stream().filter(mes -> !totais.containsKey(mes)).toList();
+        Map<YearMonth, TotaisMes> carregados = new TreeMap<>();
+        Map<YearMonth, TotaisMes> calculados = new TreeMap<>();
+        novaTransacao.executeWithoutResult(status -> {
+            repository.buscarPorPeriodo(faltantes.get(0).atDay(1), faltantes.get(faltantes.size() - 1).atDay(1))
+                    .forEach(fechada -> carregados.put(YearMonth.from(fechada.getMes()),
+                            new TotaisMes(fechada.getReceitaCentavos(), fechada.getCustoCentavos())));
+            // Só os que não estavam em memória são guardados nela, para que a expiração conte da primeira leitura
+            carregados.keySet().retainAll(faltantes);
+
+            List<YearMonth> ausentes = faltantes.stream().filter(mes -> !carregados.containsKey(mes)).toList();
+            if (!ausentes.isEmpty()) {
+                calculados.putAll(calcular.apply(ausentes));
+            }
+        });
+        totais.putAll(carregados);
+        totais.putAll(calculados);
+
+        metricas.registrarMesesFechados("tabela", carregados.size());
+        metricas.registrarMesesFechados("calculado", calculados.size());
+
+        if (geracao.get() == geracaoLida) {
+            gravar(calculados);
+            memoria.putAll(carregados);
+            memoria.putAll(calculados);
+        }
+        return totais;
+    }
+
+    /**
+     * Descarta os totais fechados dos meses que tocam o período, para que sejam recalculados
+     * na próxima consulta. Usado após correções retroativas de vendas ou dos resumos diários
+     * @param inicio Primeiro dia do período
+     * @param fim Último dia do período
+     * @return Quantidade de meses removidos da tabela
+     * @throws ConflitException Se as datas forem inválidas
+     */
+    @Transactional
+    public int invalidar(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            throw new ConflitException("Datas de início e fim são obrigatórias");
+        }
+
+        if (fim.isBefore(inicio)) {
+            throw new ConflitException("Data final não pode ser anterior à data inicial");
+        }
+
+        YearMonth primeiro = YearMonth.from(inicio);
+        YearMonth ultimo = YearMonth.from(fim);
+        descartarDaMemoria(primeiro, ultimo);
+        int removidos = repository.deletarPorPeriodo(primeiro.atDay(1), ultimo.atDay(1));
+
+        // De novo ao fim da transação, descartando o que uma consulta simultânea tenha lido antes da remoção
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                descartarDaMemoria(primeiro, ultimo);
+            }
+        });
+        versaoConteudoService.alterarReceita(inicio, fim);
+        log.info("Receita fechada invalidada de {} a {}: {} meses removidos", primeiro, ultimo, removidos);
+        return removidos;
+    }
+
+    private void descartarDaMemoria(YearMonth primeiro, YearMonth ultimo) {
+        geracao.incrementAndGet();
+        memoria.asMap().keySet().removeIf(mes -> !mes.isBefore(primeiro) && !mes.isAfter(ultimo));
+    }
+
+    // Uma falha na gravação não impede a resposta: o mês é calculado de novo na próxima consulta
+    private void gravar(Map<YearMonth, TotaisMes> calculados) {
+        if (calculados.isEmpty()) {
+            return;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        try {
+            novaTransacao.executeWithoutResult(status -> calculados.forEach((mes, totais) ->
+                    repository.gravar(mes.atDay(1), totais.receitaCentavos(), totais.custoCentavos(), agora)));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Falha ao gravar a receita fechada de {} meses: {}", calculados.size(), e.getMessage());
+        }
+    }
+}
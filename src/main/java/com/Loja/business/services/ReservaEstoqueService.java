@@ -0,0 +1,204 @@
+package com.Loja.business.services;
+
+
+import com.Loja.infrastructure.entity.Produto;
+import com.Loja.infrastructure.exceptions.ConcurrencyException;
+import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
+import com.Loja.infrastructure.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserva de estoque em memória para produtos muito vendidos.
+ * <p>
+ * Quando habilitada, as vendas são aceitas ou recusadas pelos contadores em
+ * memória, sem disputar a linha do produto no banco. A venda grava suas
+ * movimentações como pendentes na mesma transação e o
+ * {@link BaixaEstoquePendenteJob} aplica as baixas agregadas ao produto depois.
+ * Os contadores são criados sob demanda a partir do estoque gravado menos as
+ * baixas pendentes, o que também os reconstrói após um reinício ou queda.
+ * Quando o estoque é sobrescrito o contador é descartado: vendas que reservaram
+ * dele e ainda não foram confirmadas são recusadas no commit, porque o novo
+ * saldo lido do banco não as inclui.
+ * <p>
+ * Os contadores valem apenas para esta instância: o modo só deve ser
+ * habilitado com uma única instância da aplicação atendendo vendas.
+ */
+@Service
+public class ReservaEstoqueService {
+
+    // Espera máxima pelas confirmações da geração anterior ao recriar um contador
+    private static final Duration ESPERA_CONFIRMACOES = Duration.ofSeconds(5);
+
+    private final ProdutoRepository produtoRepository;
+    private final TransactionTemplate novaTransacao;
+    private final boolean habilitada;
+    private final int quantidadeFaixas;
+    private final ConcurrentMap<Long, ContadorEstoque> contadores = new ConcurrentHashMap<>();
+    // Uma criação de contador por produto de cada vez: a leitura do saldo usa uma segunda conexão do pool
+    // enquanto a venda segura a sua, e vendas simultâneas criando o mesmo contador poderiam esgotá-lo
+    private final ConcurrentMap<Long, ReentrantLock> travasCriacao = new ConcurrentHashMap<>();
+
+    public ReservaEstoqueService(ProdutoRepository produtoRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${loja.estoque.reserva-memoria.habilitada:false}") boolean habilitada,
+                                 @Value("${loja.estoque.reserva-memoria.faixas:8}") int quantidadeFaixas) {
+        this.produtoRepository = produtoRepository;
+        // Não é somente leitura de propósito: o saldo inicial do contador é quem autoriza as vendas,
+        // então é lido no primário e nunca numa réplica atrasada
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.habilitada = habilitada;
+        this.quantidadeFaixas = quantidadeFaixas;
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Reserva todas as quantidades ou nenhuma. Se a transação atual não for
+     * confirmada, as quantidades voltam para os contadores. Se o contador de
+     * algum produto for descartado antes do commit, a transação é desfeita com
+     * ConcurrencyException e a venda pode ser repetida.
+     * @param quantidades Quantidade a reservar de cada produto
+     * @throws ConflitException Se algum produto estiver inativo ou sem saldo suficiente
+     */
+    public void reservar(Map<Produto, Integer> quantidades) {
+        Map<ContadorEstoque, Integer> reservadas = new LinkedHashMap<>();
+
+        for (Map.Entry<Produto, Integer> entry : quantidades.entrySet()) {
+            ContadorEstoque contador = contadorDo(entry.getKey().getId());
+            if (!contador.reservar(entry.getValue())) {
+                reservadas.forEach(ContadorEstoque::devolver);
+                throw new EstoqueInsuficienteException("Estoque insuficiente para o produto: " + entry.getKey().getNome());
+            }
+            reservadas.put(contador, entry.getValue());
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private final List<ContadorEstoque> emConfirmacao = new ArrayList<>();
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                for (ContadorEstoque contador : reservadas.keySet()) {
+                    if (!contador.iniciarConfirmacao()) {
+                        throw new ConcurrencyException("Estoque alterado durante a venda, tente novamente");
+                    }
+                    emConfirmacao.add(contador);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservadas.forEach(ContadorEstoque::devolver);
+                }
+                emConfirmacao.forEach(ContadorEstoque::concluirConfirmacao);
+            }
+        });
+    }
+
+    /**
+     * Soma uma entrada de estoque ao contador do produto, se ele já existir.
+     * A soma é feita antes do commit: numa corrida com a criação do contador o
+     * saldo em memória pode ficar abaixo do real, mas nunca acima.
+     * @param produtoId ID do produto
+     * @param quantidade Quantidade que entrou no estoque
+     */
+    public void registrarEntrada(Long produtoId, int quantidade) {
+        if (!habilitada) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private ContadorEstoque contador;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                contador = contadores.get(produtoId);
+                if (contador != null) {
+                    contador.devolver(quantidade);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && contador != null) {
+                    contador.retirarForcado(quantidade);
+                }
+            }
+        });
+    }
+
+    /**
+     * Descarta o contador do produto após o commit, para que seja recriado a
+     * partir do banco (usado quando o estoque é sobrescrito ou o produto inativado)
+     * @param produtoId ID do produto
+     */
+    public void descartarAposCommit(Long produtoId) {
+        if (!habilitada) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Fica no mapa até ser substituído, para que o próximo contador espere as confirmações deste
+                ContadorEstoque contador = contadores.get(produtoId);
+                if (contador != null) {
+                    contador.descartar();
+                }
+            }
+        });
+    }
+
+    private ContadorEstoque contadorDo(Long produtoId) {
+        ContadorEstoque atual = contadores.get(produtoId);
+        if (atual != null && !atual.isDescartado()) {
+            return atual;
+        }
+
+        ReentrantLock trava = travasCriacao.computeIfAbsent(produtoId, id -> new ReentrantLock());
+        trava.lock();
+        try {
+            // Outra venda pode ter criado o contador enquanto esta esperava
+            ContadorEstoque anterior = contadores.get(produtoId);
+            if (anterior != null && !anterior.isDescartado()) {
+                return anterior;
+            }
+
+            // As vendas do contador descartado que já passaram do beforeCommit precisam estar gravadas antes da leitura
+            if (anterior != null && !anterior.aguardarConfirmacoes(ESPERA_CONFIRMACOES)) {
+                throw new ConcurrencyException("Estoque do produto em atualização, tente novamente");
+            }
+
+            // Lê em transação própria para enxergar as baixas pendentes já confirmadas por outras vendas
+            Long saldo = novaTransacao.execute(status -> produtoRepository.consultarSaldoDisponivel(produtoId).orElse(null));
+            if (saldo == null) {
+                throw new ConflitException("Produto não encontrado ou inativo");
+            }
+
+            ContadorEstoque novo = new ContadorEstoque(saldo, quantidadeFaixas);
+            contadores.put(produtoId, novo);
+            return novo;
+        } finally {
+            trava.unlock();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.Loja.business.services;
+
+
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Venda;
+import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class ResumoVendaDiarioService {
+
+    private final ResumoVendaDiarioRepository resumoRepository;
+    private final ReceitaMensalFechadaService receitaFechadaService;
+    private final VersaoConteudoService versaoConteudoService;
+    private final int quantidadeFaixas;
+
+    public ResumoVendaDiarioService(ResumoVendaDiarioRepository resumoRepository,
+                                    ReceitaMensalFechadaService receitaFechadaService,
+                                    VersaoConteudoService versaoConteudoService,
+                                    @Value("${loja.venda.resumo-diario.faixas:16}") int quantidadeFaixas) {
+        if (quantidadeFaixas < 1) {
+            throw new IllegalArgumentException("O resumo diário precisa de ao menos uma faixa");
+        }
+        this.resumoRepository = resumoRepository;
+        this.receitaFechadaService = receitaFechadaService;
+        this.versaoConteudoService = versaoConteudoService;
+        this.quantidadeFaixas = quantidadeFaixas;
+    }
+
+    /**
+     * Acumula os totais de uma venda no resumo do dia em que ela ocorreu.
+     * Deve ser chamado dentro da transação da venda para que o resumo só
+     * seja alterado se a venda for confirmada. A linha alterada fica travada
+     * até o commit, por isso cada venda usa uma faixa sorteada do dia: vendas
+     * simultâneas só esperam umas pelas outras quando caem na mesma faixa.
+     * Uma venda com data de um mês já fechado descarta a receita fechada do mês.
+     * @param venda Venda já com itens e valor total calculados
+     */
+    @Transactional
+    public void registrarVenda(Venda venda) {
+        long custoCentavos = 0;
+        long quantidadeItens = 0;
+
+        for (ItemVenda item : venda.getItens()) {
+            custoCentavos = Math.addExact(custoCentavos,
+                    Math.multiplyExact(item.getProdutoPrecoCompra().centavos(), item.getQuantidade()));
+            quantidadeItens += item.getQuantidade();
+        }
+
+        LocalDate dia = venda.getData().toLocalDate();
+        resumoRepository.acumularVenda(
+                dia,
+                ThreadLocalRandom.current().nextInt(quantidadeFaixas),
+                venda.getValorTotal().centavos(),
+                custoCentavos,
+                quantidadeItens
+        );
+        // Venda lançada com data retroativa: o total já fechado do mês deixou de valer
+        if (YearMonth.from(dia).isBefore(receitaFechadaService.primeiroMesAberto())) {
+            receitaFechadaService.invalidar(dia, dia);
+        }
+        versaoConteudoService.alterarReceita(dia, dia);
+    }
+
+    /**
+     * Reconstrói os resumos diários de um período a partir do histórico de vendas,
+     * descartando a receita já fechada dos meses afetados
+     * @param inicio Primeiro dia do período
+     * @param fim Último dia do período
+     * @return Quantidade de dias com vendas reconstruídos
+     * @throws ConflitException Se as datas forem inválidas
+     */
+    @Transactional
+    public int reconstruir(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            throw new ConflitException("Datas de início e fim são obrigatórias");
+        }
+
+        if (fim.isBefore(inicio)) {
+            throw new ConflitException("Data final não pode ser anterior à data inicial");
+        }
+
+        resumoRepository.deletarPorPeriodo(inicio, fim);
+        int dias = resumoRepository.recalcularPorPeriodo(inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay());
+        receitaFechadaService.invalidar(inicio, fim);
+        versaoConteudoService.alterarReceita(inicio, fim);
+        return dias;
+    }
+}
@@ -4,36 +4,57 @@ import com.Loja.business.converter.ItemVendaConverter;
 import com.Loja.business.converter.VendaConverter;
 import com.Loja.business.dto.in.ItemVendaRequestDTO;
 import com.Loja.business.dto.in.VendaRequestDTO;
+import com.Loja.business.dto.out.VendaPaginaResponseDTO;
 import com.Loja.business.dto.out.VendaResponseDTO;
 import com.Loja.business.dto.out.VendasMensalResponseDTO;
+import com.Loja.infrastructure.entity.Dinheiro;
 import com.Loja.infrastructure.entity.ItemVenda;
 import com.Loja.infrastructure.entity.Produto;
 import com.Loja.infrastructure.entity.Venda;
 import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
+import com.Loja.infrastructure.metricas.MetricasLoja;
 import com.Loja.infrastructure.repository.ProdutoRepository;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
 import com.Loja.infrastructure.repository.VendaRepository;
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 // VendaService.java
 @Service
 @RequiredArgsConstructor
 public class VendaService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+    private static final int TAMANHO_BLOCO_EXPORTACAO = 500;
+
     private final VendaRepository vendaRepository;
     private final ProdutoRepository produtoRepository;
     private final VendaConverter vendaConverter;
     private final ItemVendaConverter itemVendaConverter;
     private final ProdutoService produtoService;
+    private final ResumoVendaDiarioService resumoVendaDiarioService;
+    private final ResumoVendaDiarioRepository resumoRepository;
+    private final ObjectMapper objectMapper;
+    private final MetricasLoja metricas;
+    private final TransactionTemplate transacao;
 
 
     /**
@@ -43,55 +64,81 @@ public class VendaService {
      * @return VendaDTO com os dados da venda realizada
      * @throws ConflitException Se houver problemas de validação
      */
-    @Transactional
     public VendaResponseDTO realizarVenda(VendaRequestDTO vendaDTO) {
+        // Mede a duração, o tamanho da cesta e os conflitos de estoque de cada tentativa. A transação é aberta
+        // dentro da medição: o resultado só é registrado depois do flush e do commit, então a duração inclui a
+        // escrita e uma venda que falha ao ser confirmada conta como falha
+        Timer.Sample amostra = metricas.iniciar();
+        int itens = vendaDTO != null && vendaDTO.getItens() != null ? vendaDTO.getItens().size() : 0;
+        try {
+            VendaResponseDTO venda = transacao.execute(status -> processarVenda(vendaDTO));
+            metricas.registrarVenda(amostra, itens, null);
+            return venda;
+        } catch (RuntimeException e) {
+            metricas.registrarVenda(amostra, itens, e);
+            throw e;
+        }
+    }
+
+    private VendaResponseDTO processarVenda(VendaRequestDTO vendaDTO) {
         // Validação básica do DTO de entrada
         if (vendaDTO == null || vendaDTO.getItens() == null || vendaDTO.getItens().isEmpty()) {
             throw new ConflitException("A venda deve conter pelo menos um item");
         }
 
-        // Cria e persiste a venda inicial (com valor zerado)
-        Venda venda = new Venda();
-        venda.setData(LocalDateTime.now()); // Data/hora atual
-        venda.setValorTotal(0.0); // Valor inicial zerado
-        venda = vendaRepository.save(venda); // Persiste para gerar ID
-
-        List<ItemVenda> itens = new ArrayList<>();
-        double valorTotal = 0.0;
-
-        // Processa cada item da venda
+        // Valida os itens e soma as quantidades pedidas de cada produto
+        Map<Long, Integer> quantidadesPorProduto = new LinkedHashMap<>();
         for (ItemVendaRequestDTO itemDTO : vendaDTO.getItens()) {
-            // Validação do item
             if (itemDTO.getProdutoId() == null || itemDTO.getQuantidade() == null || itemDTO.getQuantidade() <= 0) {
                 throw new ConflitException("Item de venda inválido: produtoId e quantidade são obrigatórios");
             }
+            quantidadesPorProduto.merge(itemDTO.getProdutoId(), itemDTO.getQuantidade(), Integer::sum);
+        }
 
-            // Busca o produto no banco de dados
-            Produto produto = produtoRepository.findById(itemDTO.getProdutoId())
-                    .orElseThrow(() -> new ConflitException("Produto não encontrado: " + itemDTO.getProdutoId()));
+        // Busca os produtos da venda no cache de segundo nível e os ausentes em uma única consulta
+        Map<Long, Produto> produtos = produtoRepository.buscarAtivosPorIds(quantidadesPorProduto.keySet()).stream()
+                .collect(Collectors.toMap(Produto::getId, Function.identity()));
 
-            // Verifica se há estoque suficiente
-            if (produto.getQuantidadeEstoque() < itemDTO.getQuantidade()) {
-                throw new ConflitException("Estoque insuficiente para o produto: " + produto.getNome());
+        // Verifica se há estoque suficiente para o total pedido de cada produto
+        Map<Produto, Integer> baixasEstoque = new LinkedHashMap<>();
+        quantidadesPorProduto.forEach((produtoId, quantidade) -> {
+            Produto produto = produtos.get(produtoId);
+            if (produto == null) {
+                throw new ConflitException("Produto não encontrado: " + produtoId);
             }
+            if (!produtoService.possuiEstoque(produto, quantidade)) {
+                throw new EstoqueInsuficienteException("Estoque insuficiente para o produto: " + produto.getNome());
+            }
+            baixasEstoque.put(produto, quantidade);
+        });
 
-            // Cria o item de venda com todos os campos necessários
-            ItemVenda item = criarItemVenda(venda, produto, itemDTO);
+        Venda venda = new Venda();
+        venda.setData(LocalDateTime.now()); // Data/hora atual
 
-            itens.add(item);
-            valorTotal += item.getSubtotal();
+        List<ItemVenda> itens = new ArrayList<>();
+        long valorTotalCentavos = 0;
 
-            // Atualiza o estoque do produto
-            produtoService.removerEstoque(produto.getId(), itemDTO.getQuantidade());
+        // Cria os itens da venda com todos os campos necessários
+        for (ItemVendaRequestDTO itemDTO : vendaDTO.getItens()) {
+            ItemVenda item = criarItemVenda(venda, produtos.get(itemDTO.getProdutoId()), itemDTO);
+
+            itens.add(item);
+            valorTotalCentavos = Math.addExact(valorTotalCentavos, item.getSubtotal().centavos());
         }
 
-        // Atualiza o valor total da venda
-        venda.setValorTotal(valorTotal);
+        // Atualiza o estoque de todos os produtos de uma vez
+        produtoService.removerEstoqueEmLote(baixasEstoque);
+
+        // Define o valor total e os itens da venda
+        venda.setValorTotal(Dinheiro.deCentavos(valorTotalCentavos));
         venda.setItens(itens);
 
-        // Salva a venda completa (com itens e valor total)
+        // Salva a venda completa (os itens são inseridos em lote pelo cascade)
         venda = vendaRepository.save(venda);
 
+        // Acumula a venda no resumo diário usado pelos relatórios
+        resumoVendaDiarioService.registrarVenda(venda);
+
         // Converte para DTO e retorna
         return vendaConverter.toDTO(venda);
     }
@@ -117,7 +164,7 @@ public class VendaService {
         item.setProdutoPrecoVenda(produto.getPrecoVenda());
 
         // Calcula subtotal (preço venda × quantidade)
-        item.setSubtotal(produto.getPrecoVenda() * itemDTO.getQuantidade());
+        item.setSubtotal(produto.getPrecoVenda().multiplicar(itemDTO.getQuantidade()));
 
         return item;
     }
@@ -129,6 +176,7 @@ public class VendaService {
      * @param fim    Data final do período
      * @return Lista de VendaDTO com as vendas do período
      */
+    @Transactional(readOnly = true)
     public List<VendaResponseDTO> listarVendasPorPeriodo(LocalDate inicio, LocalDate fim) {
         // Converte as datas para LocalDateTime para incluir todo o dia
         LocalDateTime inicioDateTime = inicio.atStartOfDay();
@@ -140,38 +188,174 @@ public class VendaService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lista uma página de vendas do período, ordenada por data e ID
+     *
+     * @param inicio   Data de início do período
+     * @param fim      Data final do período
+     * @param aposData Data da última venda da página anterior (nula na primeira página)
+     * @param aposId   ID da última venda da página anterior (nulo na primeira página)
+     * @param tamanho  Quantidade máxima de vendas na página
+     * @return Página de vendas com o cursor da próxima página (nulo se esta for a última)
+     * @throws ConflitException Se o tamanho da página for inválido
+     */
+    @Transactional(readOnly = true)
+    public VendaPaginaResponseDTO listarVendasPorPeriodoPaginado(LocalDate inicio, LocalDate fim,
+                                                                 LocalDateTime aposData, Long aposId, int tamanho) {
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new ConflitException("Tamanho da página deve ser entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+        }
+
+        LocalDateTime inicioDateTime = inicio.atStartOfDay();
+        LocalDateTime fimDateTime = fim.atTime(23, 59, 59);
+
+        // Sem cursor, a página começa no início do período. Busca uma venda a mais só para saber se há
+        // próxima página: uma página exatamente cheia no fim do período não devolve cursor
+        List<Venda> vendas = vendaRepository.buscarPaginaPorPeriodo(
+                inicioDateTime,
+                fimDateTime,
+                aposData != null ? aposData : inicioDateTime,
+                aposId != null ? aposId : 0L,
+                Limit.of(tamanho + 1));
+        boolean temProxima = vendas.size() > tamanho;
+        if (temProxima) {
+            vendas = vendas.subList(0, tamanho);
+        }
+
+        VendaPaginaResponseDTO pagina = new VendaPaginaResponseDTO();
+        pagina.setVendas(vendas.stream()
+                .map(vendaConverter::toDTO)
+                .collect(Collectors.toList()));
+
+        if (temProxima) {
+            Venda ultima = vendas.get(vendas.size() - 1);
+            pagina.setProximaData(ultima.getData());
+            pagina.setProximoId(ultima.getId());
+        }
+        return pagina;
+    }
+
+    /**
+     * Valida o período das consultas de vendas. Chamado pelo controller antes de a resposta
+     * transmitida começar, para que um período inválido não chegue com status 200
+     *
+     * @param inicio Data de início do período
+     * @param fim    Data final do período
+     * @throws ConflitException Se as datas forem inválidas
+     */
+    public void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        if (inicio == null || fim == null) {
+            throw new ConflitException("Datas de início e fim são obrigatórias");
+        }
+        if (fim.isBefore(inicio)) {
+            throw new ConflitException("Data final não pode ser anterior à data inicial");
+        }
+    }
+
+    /**
+     * Escreve as vendas do período como NDJSON (um JSON por linha), lendo do banco
+     * em blocos e escrevendo cada bloco fora da transação
+     *
+     * @param inicio Data de início do período
+     * @param fim    Data final do período
+     * @param saida  Stream de saída da resposta
+     * @throws IOException Se a escrita na saída falhar
+     */
+    public void exportarVendasPorPeriodo(LocalDate inicio, LocalDate fim, OutputStream saida) throws IOException {
+        percorrerVendasPorPeriodo(inicio, fim, venda -> {
+            saida.write(objectMapper.writeValueAsBytes(venda));
+            saida.write('\n');
+        });
+        saida.flush();
+    }
+
+    /**
+     * Transmite as vendas do período como server-sent events (evento "venda"), bloco a bloco
+     * à medida que são lidas, terminando com o evento "fim" com o total de vendas enviadas
+     *
+     * @param inicio Data de início do período
+     * @param fim    Data final do período
+     * @param saida  Stream de saída da resposta
+     * @throws IOException Se a escrita na saída falhar
+     */
+    public void transmitirVendasPorPeriodo(LocalDate inicio, LocalDate fim, OutputStream saida) throws IOException {
+        EscritorSse eventos = new EscritorSse(saida, objectMapper);
+        long total = percorrerVendasPorPeriodo(inicio, fim, venda -> eventos.enviar("venda", venda));
+        eventos.enviar("fim", Map.of("total", total));
+    }
+
+    // Lê as vendas do período em blocos pela chave (data, id), cada bloco em uma transação curta de leitura
+    // encerrada antes da escrita: a conexão volta ao pool enquanto o cliente consome o bloco, por mais lento que seja
+    private long percorrerVendasPorPeriodo(LocalDate inicio, LocalDate fim, EscritaVenda escrita) throws IOException {
+        validarPeriodo(inicio, fim);
+        LocalDateTime inicioDateTime = inicio.atStartOfDay();
+        LocalDateTime fimDateTime = fim.atTime(23, 59, 59);
+
+        TransactionTemplate leitura = new TransactionTemplate(transacao.getTransactionManager());
+        leitura.setReadOnly(true);
+
+        long total = 0;
+        LocalDateTime aposData = inicioDateTime;
+        long aposId = 0L;
+        while (true) {
+            LocalDateTime blocoAposData = aposData;
+            long blocoAposId = aposId;
+            BlocoVendas bloco = leitura.execute(status ->
+                    lerBloco(inicioDateTime, fimDateTime, blocoAposData, blocoAposId));
+            for (VendaResponseDTO venda : bloco.vendas()) {
+                escrita.escrever(venda);
+            }
+            total += bloco.vendas().size();
+            if (bloco.vendas().size() < TAMANHO_BLOCO_EXPORTACAO) {
+                return total;
+            }
+            aposData = bloco.ultimaData();
+            aposId = bloco.ultimoId();
+        }
+    }
+
+    // Um bloco da exportação já convertido: a página de vendas pela chave e os itens de todas em uma segunda consulta
+    private BlocoVendas lerBloco(LocalDateTime inicio, LocalDateTime fim, LocalDateTime aposData, long aposId) {
+        List<Venda> pagina = vendaRepository.buscarPaginaPorPeriodo(
+                inicio, fim, aposData, aposId, Limit.of(TAMANHO_BLOCO_EXPORTACAO));
+        if (pagina.isEmpty()) {
+            return new BlocoVendas(List.of(), null, null);
+        }
+        List<VendaResponseDTO> vendas = vendaRepository.buscarComItensPorIds(
+                        pagina.stream().map(Venda::getId).collect(Collectors.toList())).stream()
+                .map(vendaConverter::toDTO)
+                .collect(Collectors.toList());
+        Venda ultima = pagina.get(pagina.size() - 1);
+        return new BlocoVendas(vendas, ultima.getData(), ultima.getId());
+    }
+
+    private record BlocoVendas(List<VendaResponseDTO> vendas, LocalDateTime ultimaData, Long ultimoId) {
+    }
+
+    @FunctionalInterface
+    private interface EscritaVenda {
+        void escrever(VendaResponseDTO venda) throws IOException;
+    }
+
     /**
      * Consulta a quantidade de vendas por mês em um ano específico
      *
      * @param ano Ano para consulta
      * @return Lista de VendasMensalDTO com a quantidade de vendas por mês
      */
+    @Transactional(readOnly = true)
     public List<VendasMensalResponseDTO> consultarQuantidadeVendasMensal(int ano) {
         // Validação do ano
         if (ano < 2000 || ano > LocalDate.now().getYear() + 1) {
             throw new ConflitException("Ano inválido");
         }
 
-        // Processa cada mês do ano (1 a 12)
-        return IntStream.rangeClosed(1, 12)
-                .mapToObj(mes -> {
-                    // Define o intervalo do mês (do dia 1 ao último dia)
-                    LocalDate inicioMes = LocalDate.of(ano, mes, 1);
-                    LocalDate fimMes = inicioMes.withDayOfMonth(inicioMes.lengthOfMonth());
-
-                    // Converte para LocalDateTime
-                    LocalDateTime inicio = inicioMes.atStartOfDay();
-                    LocalDateTime fim = fimMes.atTime(23, 59, 59);
-
-                    // Conta as vendas no período
-                    long quantidadeVendas = vendaRepository.countByDataBetween(inicio, fim);
-
-                    // Cria o DTO com os dados
-                    return new VendasMensalResponseDTO(
-                            YearMonth.of(ano, mes),
-                            quantidadeVendas
-                    );
-                })
+        // Conta as vendas de cada mês a partir dos resumos diários (meses sem vendas não aparecem)
+        return resumoRepository.somarPorMes(LocalDate.of(ano, 1, 1), LocalDate.of(ano, 12, 31)).stream()
+                .map(totais -> new VendasMensalResponseDTO(
+                        YearMonth.of(ano, totais.getMes()),
+                        totais.getQuantidadeVendas()
+                ))
                 .filter(dto -> dto.getQuantidadeVendas() > 0) // Filtra meses sem vendas
                 .collect(Collectors.toList());
     }
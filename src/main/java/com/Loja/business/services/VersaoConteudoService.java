@@ -0,0 +1,95 @@
+package com.Loja.business.services;
+
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versões do catálogo de produtos e dos relatórios de receita (por ano), usadas como ETag
+ * nas requisições condicionais: quem já tem a versão atual recebe 304 sem que a consulta
+ * seja executada nem a resposta serializada. Não há Last-Modified: com a resolução de um
+ * segundo do If-Modified-Since, uma alteração no mesmo segundo de uma resposta anterior
+ * seria respondida com 304.
+ * <p>
+ * As versões avançam depois do commit de cada alteração, então uma leitura nunca associa
+ * dados antigos a uma versão nova. Os contadores valem apenas para esta instância e a
+ * leitura pode vir da réplica: por isso cada versão também muda a cada janela de validade,
+ * o que limita por quanto tempo uma alteração feita em outra instância (ou ainda não
+ * replicada) deixaria de ser vista.
+ */
+@Service
+public class VersaoConteudoService {
+
+    // Diferencia as versões desta execução das de outras instâncias e de antes de um reinício
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+    private final long validadeMs;
+    private final AtomicLong catalogo = new AtomicLong();
+    private final ConcurrentMap<Integer, AtomicLong> receitaPorAno = new ConcurrentHashMap<>();
+
+    public VersaoConteudoService(@Value("${loja.http.condicional.validade:30s}") Duration validade) {
+        this.validadeMs = validade.toMillis();
+    }
+
+    // ETag do catálogo de produtos
+    public String catalogo() {
+        return etag("catalogo", catalogo.get());
+    }
+
+    /**
+     * ETag dos relatórios de receita que cobrem os anos informados
+     * @param anoInicio Primeiro ano
+     * @param anoFim Último ano
+     */
+    public String receita(int anoInicio, int anoFim) {
+        long versao = 0;
+        for (int ano = Math.min(anoInicio, anoFim); ano <= Math.max(anoInicio, anoFim); ano++) {
+            AtomicLong contador = receitaPorAno.get(ano);
+            if (contador != null) {
+                versao += contador.get();
+            }
+        }
+        return etag("receita-" + anoInicio + "-" + anoFim, versao);
+    }
+
+    // Produtos, preços ou estoque alterados na transação atual
+    public void alterarCatalogo() {
+        aoConfirmar(catalogo::incrementAndGet);
+    }
+
+    // Vendas ou resumos do período alterados na transação atual
+    public void alterarReceita(LocalDate inicio, LocalDate fim) {
+        aoConfirmar(() -> {
+            for (int ano = inicio.getYear(); ano <= fim.getYear(); ano++) {
+                receitaPorAno.computeIfAbsent(ano, chave -> new AtomicLong()).incrementAndGet();
+            }
+        });
+    }
+
+    private String etag(String recurso, long versao) {
+        // A versão muda a cada janela de validade mesmo sem alterações nesta instância
+        long janela = System.currentTimeMillis() / validadeMs;
+        return "\"" + recurso + "-" + instancia + "-" + versao + "-" + janela + "\"";
+    }
+
+    private static void aoConfirmar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
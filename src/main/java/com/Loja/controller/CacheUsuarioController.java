@@ -0,0 +1,46 @@
+package com.Loja.controller;
+
+
+import com.Loja.business.dto.out.CacheUsuarioEstatisticasDTO;
+import com.Loja.infrastructure.security.AutorizacaoLocalService;
+import com.Loja.infrastructure.security.UserDetailsServiceImpl;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// CacheUsuarioController.java
+@RestController
+@RequestMapping("/admin/loja/cache-usuarios")
+@RequiredArgsConstructor
+public class CacheUsuarioController {
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final AutorizacaoLocalService autorizacaoLocalService;
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<CacheUsuarioEstatisticasDTO> consultarEstatisticas() {
+        CacheStats stats = userDetailsService.estatisticasCache();
+        return ResponseEntity.ok(CacheUsuarioEstatisticasDTO.builder()
+                .acertos(stats.hitCount())
+                .faltas(stats.missCount())
+                .taxaAcerto(stats.hitRate())
+                .carregamentosComFalha(stats.loadFailureCount())
+                .remocoes(stats.evictionCount())
+                .tamanho(userDetailsService.tamanhoCache())
+                .build());
+    }
+
+    @DeleteMapping("/{email}")
+    public ResponseEntity<Void> invalidarUsuario(@PathVariable String email) {
+        userDetailsService.invalidarUsuario(email);
+        autorizacaoLocalService.limpar(email);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> invalidarTodos() {
+        userDetailsService.invalidarTodos();
+        return ResponseEntity.noContent().build();
+    }
+}
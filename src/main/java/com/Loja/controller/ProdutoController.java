@@ -2,17 +2,19 @@ package com.Loja.controller;
 
 
 import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.business.dto.out.ProdutoPaginaResponseDTO;
 import com.Loja.business.dto.out.ProdutoResponseDTO;
 import com.Loja.business.services.ProdutoService;
+import com.Loja.business.services.VersaoConteudoService;
 import com.Loja.infrastructure.entity.Specification.ProdutoFiltro;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 // ProdutoController.java
 @RestController
@@ -21,15 +23,26 @@ import java.util.List;
 public class ProdutoController {
 
     private final ProdutoService produtoService;
+    private final VersaoConteudoService versaoConteudoService;
 
+    // As leituras do catálogo respondem 304 quando o cliente já tem a versão atual, sem consultar o banco
     @GetMapping
-    public ResponseEntity<List<ProdutoResponseDTO>> listarTodosProdutos() {
-        return ResponseEntity.ok(produtoService.listarTodos());
+    public ResponseEntity<ProdutoPaginaResponseDTO> listarTodosProdutos(
+            @RequestParam(required = false) Integer pagina,
+            @RequestParam(required = false) Integer tamanho,
+            WebRequest request) {
+        if (naoModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(produtoService.listarTodos(pagina, tamanho));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoResponseDTO> buscarProdutosPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(produtoService.buscarPorId(id));
+    public ResponseEntity<ProdutoResponseDTO> buscarProdutosPorId(@PathVariable Long id, WebRequest request) {
+        if (naoModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(produtoService.buscarPorId(id));
     }
 
     @PostMapping
@@ -69,8 +82,17 @@ public class ProdutoController {
     }
 
     @GetMapping("/pesquisar")
-    public ResponseEntity<List<ProdutoResponseDTO>> pesquisarProdutos(
-            @ModelAttribute ProdutoFiltro filtro) {
-        return ResponseEntity.ok(produtoService.pesquisarProdutos(filtro));
+    public ResponseEntity<ProdutoPaginaResponseDTO> pesquisarProdutos(
+            @ModelAttribute ProdutoFiltro filtro, WebRequest request) {
+        if (naoModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(produtoService.pesquisarProdutos(filtro));
+    }
+
+    // Responde 304 se o ETag enviado corresponde à versão atual do catálogo;
+    // senão grava o ETag na resposta que será montada
+    private boolean naoModificado(WebRequest request) {
+        return request.checkNotModified(versaoConteudoService.catalogo());
     }
 }
@@ -5,10 +5,17 @@ package com.Loja.controller;
 import com.Loja.business.dto.out.ReceitaResponseDTO;
 import com.Loja.business.dto.out.ReceitaMensalDTO;
 import com.Loja.business.services.ReceitaLojaService;
+import com.Loja.business.services.ReceitaMensalFechadaService;
+import com.Loja.business.services.ResumoVendaDiarioService;
+import com.Loja.business.services.VersaoConteudoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.Collections;
@@ -21,31 +28,79 @@ import java.util.List;
 public class ReceitaLojaController {
 
     private final ReceitaLojaService receitaService;
+    private final ResumoVendaDiarioService resumoVendaDiarioService;
+    private final ReceitaMensalFechadaService receitaMensalFechadaService;
+    private final VersaoConteudoService versaoConteudoService;
 
     @GetMapping
     public ResponseEntity<ReceitaResponseDTO> calcularReceitaLoja(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
-        return ResponseEntity.ok(receitaService.calcularReceita(inicio, fim));
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            WebRequest request) {
+        // 304 quando o cliente já tem a versão atual dos anos do período, sem consultar o banco
+        if (naoModificado(request, inicio.getYear(), fim.getYear())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(receitaService.calcularReceita(inicio, fim));
     }
 
     @GetMapping("/mensal/{ano}")
     public ResponseEntity<List<ReceitaMensalDTO>> calcularReceitaMensalLoja(
-            @PathVariable int ano) {
+            @PathVariable int ano, WebRequest request) {
+        if (naoModificado(request, ano, ano)) {
+            return null;
+        }
         List<ReceitaMensalDTO> receitas = receitaService.calcularReceitaMensal(ano);
 
         if (receitas.isEmpty()) {
             return ResponseEntity.ok(Collections.emptyList()); // Retorna 200 com lista vazia
         }
 
-        return ResponseEntity.ok(receitas);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(receitas);
+    }
+
+    // Server-sent events: um evento "receita-mensal" por mês do ano e um evento "fim"
+    @GetMapping(value = "/mensal/{ano}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirReceitaMensalLoja(@PathVariable int ano) {
+        // Valida antes do corpo: depois que a transmissão começa, o status 200 já foi enviado
+        receitaService.validarAno(ano);
+        StreamingResponseBody corpo = saida -> receitaService.transmitirReceitaMensal(ano, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no") // Evita que proxies (nginx) acumulem os eventos
+                .body(corpo);
     }
 
     @GetMapping("/mensal/{ano}/{mes}")
     public ResponseEntity<ReceitaMensalDTO> getReceitaDoMesLoja(
             @PathVariable int ano,
-            @PathVariable int mes) {
-        return ResponseEntity.ok(receitaService.consultarReceitaDoMes(ano, mes));
+            @PathVariable int mes,
+            WebRequest request) {
+        if (naoModificado(request, ano, ano)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(receitaService.consultarReceitaDoMes(ano, mes));
     }
 
+    @PostMapping("/resumo/reconstruir")
+    public ResponseEntity<Integer> reconstruirResumoDiario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        return ResponseEntity.ok(resumoVendaDiarioService.reconstruir(inicio, fim));
+    }
+
+    // Correção retroativa: descarta a receita fechada dos meses do período, recalculada na próxima consulta
+    @DeleteMapping("/fechada")
+    public ResponseEntity<Integer> invalidarReceitaFechada(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        return ResponseEntity.ok(receitaMensalFechadaService.invalidar(inicio, fim));
+    }
+
+    // Responde 304 se o ETag enviado corresponde à versão atual da receita dos anos;
+    // senão grava o ETag na resposta que será montada
+    private boolean naoModificado(WebRequest request, int anoInicio, int anoFim) {
+        return request.checkNotModified(versaoConteudoService.receita(anoInicio, anoFim));
+    }
 }
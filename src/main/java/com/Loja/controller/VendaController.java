@@ -2,16 +2,21 @@ package com.Loja.controller;
 
 
 import com.Loja.business.dto.in.VendaRequestDTO;
+import com.Loja.business.dto.out.VendaPaginaResponseDTO;
 import com.Loja.business.dto.out.VendaResponseDTO;
 import com.Loja.business.dto.out.VendasMensalResponseDTO;
 import com.Loja.business.services.VendaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 // VendaController.java
@@ -33,6 +38,40 @@ public class VendaController {
         return ResponseEntity.ok(vendaService.listarVendasPorPeriodo(inicio, fim));
     }
 
+    @GetMapping("/periodo/pagina")
+    public ResponseEntity<VendaPaginaResponseDTO> listarVendasPorPeriodoPaginado(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime aposData,
+            @RequestParam(required = false) Long aposId,
+            @RequestParam(defaultValue = "100") int tamanho) {
+        return ResponseEntity.ok(vendaService.listarVendasPorPeriodoPaginado(inicio, fim, aposData, aposId, tamanho));
+    }
+
+    @GetMapping(value = "/periodo/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarVendasPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        // Valida antes do corpo: depois que a transmissão começa, o status 200 já foi enviado
+        vendaService.validarPeriodo(inicio, fim);
+        StreamingResponseBody corpo = saida -> vendaService.exportarVendasPorPeriodo(inicio, fim, saida);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    // Server-sent events: um evento "venda" por venda lida do cursor e um evento "fim" com o total
+    @GetMapping(value = "/periodo/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> transmitirVendasPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        vendaService.validarPeriodo(inicio, fim);
+        StreamingResponseBody corpo = saida -> vendaService.transmitirVendasPorPeriodo(inicio, fim, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no") // Evita que proxies (nginx) acumulem os eventos
+                .body(corpo);
+    }
+
     @GetMapping("/mensal/{ano}")
     public ResponseEntity<List<VendasMensalResponseDTO>> getVendasMensal(@PathVariable int ano) {
         return ResponseEntity.ok(vendaService.consultarQuantidadeVendasMensal(ano));
@@ -0,0 +1,122 @@
+package com.Loja.infrastructure.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Mede periodicamente o atraso de replicação da réplica de leitura e decide se ela pode receber consultas.
+ * A réplica fica fora do roteamento enquanto o atraso passar do máximo, a replicação estiver parada
+ * ou não configurada, ou a consulta de atraso falhar.
+ */
+public class MonitorReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorReplica.class);
+
+    // Colunas do SHOW REPLICA STATUS (MySQL 8.0.22+) e do antigo SHOW SLAVE STATUS
+    private static final String[] COLUNAS_ATRASO = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final DataSource replica;
+    private final String consultaAtraso;
+    private final Duration atrasoMaximo;
+    private final boolean aceitarSemReplicacao;
+
+    // Fora do roteamento até a primeira verificação
+    private volatile boolean disponivel;
+    private volatile long atrasoSegundos = -1;
+    private boolean verificada;
+
+    /**
+     * @param aceitarSemReplicacao Se uma consulta de atraso sem linhas (instância que não replica de ninguém)
+     *                             conta como atraso zero. Só para testes com duas instâncias locais independentes;
+     *                             em produção a réplica sem replicação configurada fica fora do roteamento
+     */
+    public MonitorReplica(DataSource replica, String consultaAtraso, Duration atrasoMaximo, boolean aceitarSemReplicacao) {
+        this.replica = replica;
+        this.consultaAtraso = consultaAtraso;
+        this.atrasoMaximo = atrasoMaximo;
+        this.aceitarSemReplicacao = aceitarSemReplicacao;
+    }
+
+    @Scheduled(fixedDelayString = "${loja.datasource.replica.intervalo-verificacao-ms:1000}")
+    public void verificar() {
+        try (Connection conexao = replica.getConnection();
+             Statement comando = conexao.createStatement();
+             ResultSet resultado = comando.executeQuery(consultaAtraso)) {
+            if (!resultado.next()) {
+                if (aceitarSemReplicacao) {
+                    atualizar(true, 0, null);
+                } else {
+                    atualizar(false, -1, "replicação não configurada ou reiniciada");
+                }
+                return;
+            }
+            Long atraso = lerAtraso(resultado);
+            if (atraso == null) {
+                atualizar(false, -1, "replicação parada");
+            } else if (atraso > atrasoMaximo.toSeconds()) {
+                atualizar(false, atraso, "atraso de " + atraso + "s acima do máximo de " + atrasoMaximo.toSeconds() + "s");
+            } else {
+                atualizar(true, atraso, null);
+            }
+        } catch (SQLException e) {
+            marcarIndisponivel(e);
+        }
+    }
+
+    public void marcarIndisponivel(SQLException erro) {
+        atualizar(false, -1, "falha ao acessar a réplica: " + erro.getMessage());
+    }
+
+    public boolean isDisponivel() {
+        return disponivel;
+    }
+
+    /**
+     * @return Último atraso medido em segundos, ou -1 se desconhecido
+     */
+    public long getAtrasoSegundos() {
+        return atrasoSegundos;
+    }
+
+    // Um valor nulo indica replicação configurada mas parada
+    private static Long lerAtraso(ResultSet resultado) throws SQLException {
+        int coluna = colunaAtraso(resultado.getMetaData());
+        long atraso = resultado.getLong(coluna);
+        return resultado.wasNull() ? null : atraso;
+    }
+
+    private static int colunaAtraso(ResultSetMetaData metadados) throws SQLException {
+        for (int i = 1; i <= metadados.getColumnCount(); i++) {
+            for (String nome : COLUNAS_ATRASO) {
+                if (nome.equalsIgnoreCase(metadados.getColumnLabel(i))) {
+                    return i;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private synchronized void atualizar(boolean disponivelAgora, long atraso, String motivo) {
+        atrasoSegundos = atraso;
+        // Registra no log o resultado da primeira verificação e depois apenas as mudanças de estado
+        if (verificada && disponivelAgora == disponivel) {
+            return;
+        }
+        verificada = true;
+        disponivel = disponivelAgora;
+        if (disponivelAgora) {
+            log.info("Réplica de leitura disponível (atraso de {}s); leituras voltam para a réplica", atraso);
+        } else {
+            log.warn("Réplica de leitura fora do roteamento ({}); leituras seguem no primário", motivo);
+        }
+    }
+}
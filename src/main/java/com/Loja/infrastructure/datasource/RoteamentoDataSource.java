@@ -0,0 +1,60 @@
+package com.Loja.infrastructure.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Envia as transações somente leitura para a réplica enquanto o MonitorReplica a considerar disponível;
+ * todo o resto (escritas, leituras fora de transação somente leitura) vai para o primário.
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy, para que a conexão só seja escolhida depois
+ * que a transação já foi marcada como somente leitura.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    enum Destino {
+        PRIMARIO,
+        REPLICA
+    }
+
+    private final DataSource primario;
+    private final DataSource replica;
+    private final MonitorReplica monitor;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, MonitorReplica monitor) {
+        this.primario = primario;
+        this.replica = replica;
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.isDisponivel()) {
+            return Destino.REPLICA;
+        }
+        return Destino.PRIMARIO;
+    }
+
+    // Se a réplica recusar a conexão, a leitura segue no primário e a réplica sai do roteamento até a próxima verificação
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource destino = determineTargetDataSource();
+        if (destino != replica) {
+            return destino.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            monitor.marcarIndisponivel(e);
+            return primario.getConnection();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.Loja.infrastructure.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Só é ativado com loja.datasource.replica.url; sem ela o DataSource continua sendo o do Spring Boot
+@Configuration
+@ConditionalOnProperty(name = "loja.datasource.replica.url")
+public class RoteamentoDataSourceConfig {
+
+    // Primário montado a partir de spring.datasource.*, como o Spring Boot faria sem a réplica
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties propriedades) {
+        return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("loja.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${loja.datasource.replica.url}") String url,
+                                              @Value("${loja.datasource.replica.usuario:${spring.datasource.username:}}") String usuario,
+                                              @Value("${loja.datasource.replica.senha:${spring.datasource.password:}}") String senha) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(usuario)
+                .password(senha)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("replicaDataSource") DataSource replica,
+                                         @Value("${loja.datasource.replica.consulta-atraso:SHOW REPLICA STATUS}") String consultaAtraso,
+                                         @Value("${loja.datasource.replica.atraso-maximo:5s}") Duration atrasoMaximo,
+                                         @Value("${loja.datasource.replica.aceitar-sem-replicacao:false}") boolean aceitarSemReplicacao) {
+        return new MonitorReplica(replica, consultaAtraso, atrasoMaximo, aceitarSemReplicacao);
+    }
+
+    // DataSource usado por JPA, JdbcTemplate e Flyway: a conexão física só é obtida no primeiro comando,
+    // quando o roteamento já sabe se a transação é somente leitura
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 MonitorReplica monitor) {
+        return new LazyConnectionDataSourceProxy(new RoteamentoDataSource(primario, replica, monitor));
+    }
+
+    @Bean
+    public MeterBinder metricasReplica(MonitorReplica monitor) {
+        return registry -> {
+            Gauge.builder("loja.datasource.replica.disponivel", monitor, m -> m.isDisponivel() ? 1 : 0)
+                    .description("Se a réplica de leitura está recebendo as transações somente leitura (1) ou não (0)")
+                    .register(registry);
+            Gauge.builder("loja.datasource.replica.atraso", monitor, MonitorReplica::getAtrasoSegundos)
+                    .description("Último atraso de replicação medido (-1 se desconhecido)")
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.Loja.infrastructure.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor monetário em ponto fixo, guardado como quantidade inteira de centavos.
+ * Somas e multiplicações são operações com long (exatas, com verificação de overflow);
+ * BigDecimal só é usado na fronteira (JSON e colunas DECIMAL).
+ */
+public final class Dinheiro implements Comparable<Dinheiro> {
+
+    public static final Dinheiro ZERO = new Dinheiro(0);
+
+    private static final int CASAS_DECIMAIS = 2;
+
+    private final long centavos;
+
+    private Dinheiro(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinheiro deCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Dinheiro(centavos);
+    }
+
+    /**
+     * Converte um valor decimal, arredondando para centavos (meio para o par)
+     * @param valor Valor em reais
+     * @return Dinheiro correspondente, ou null se o valor for null
+     * @throws ArithmeticException Se o valor não couber em um long de centavos
+     */
+    @JsonCreator
+    public static Dinheiro de(BigDecimal valor) {
+        if (valor == null) {
+            return null;
+        }
+        return deCentavos(valor.setScale(CASAS_DECIMAIS, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    // Usado pelo Spring para converter parâmetros de requisição (ex.: ?precoMin=10.50)
+    public static Dinheiro valueOf(String valor) {
+        return de(new BigDecimal(valor.trim()));
+    }
+
+    public long centavos() {
+        return centavos;
+    }
+
+    public Dinheiro somar(Dinheiro outro) {
+        return deCentavos(Math.addExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro subtrair(Dinheiro outro) {
+        return deCentavos(Math.subtractExact(centavos, outro.centavos));
+    }
+
+    public Dinheiro multiplicar(long quantidade) {
+        return deCentavos(Math.multiplyExact(centavos, quantidade));
+    }
+
+    public boolean isNegativo() {
+        return centavos < 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, CASAS_DECIMAIS);
+    }
+
+    @Override
+    public int compareTo(Dinheiro outro) {
+        return Long.compare(centavos, outro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Dinheiro outro && centavos == outro.centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
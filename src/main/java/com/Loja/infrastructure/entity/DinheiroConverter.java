@@ -0,0 +1,21 @@
+package com.Loja.infrastructure.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Grava Dinheiro em colunas DECIMAL(19,2); aplicado automaticamente a todo atributo do tipo Dinheiro
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinheiro valor) {
+        return valor == null ? null : valor.toBigDecimal();
+    }
+
+    @Override
+    public Dinheiro convertToEntityAttribute(BigDecimal coluna) {
+        return Dinheiro.de(coluna);
+    }
+}
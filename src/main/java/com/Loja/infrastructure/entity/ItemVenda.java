@@ -9,17 +9,20 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "itemVenda")
+@Table(name = "itemVenda", indexes = {
+        @Index(name = "idx_item_venda_venda_produto", columnList = "venda_id, produto_id")
+})
 public class ItemVenda {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_venda_seq")
+    @SequenceGenerator(name = "item_venda_seq", sequenceName = "item_venda_seq", allocationSize = 50) // Permite inserts em lote
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false)
     private Venda venda;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(nullable = false)
     private Produto produto;
 
@@ -27,21 +30,21 @@ public class ItemVenda {
     @Column(nullable = false)
     private String produtoNome;
 
-    @Column(nullable = false)
-    private Double produtoPrecoCompra;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro produtoPrecoCompra;
 
-    @Column(nullable = false)
-    private Double produtoPrecoVenda;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro produtoPrecoVenda;
 
 
     @Column(nullable = false)
     private Integer quantidade;
 
-    @Column(nullable = false)
-    private Double precoUnitario;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro precoUnitario;
 
-    @Column(nullable = false)
-    private Double subtotal;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro subtotal;
 
     @PrePersist
     @PreUpdate
@@ -60,7 +63,7 @@ public class ItemVenda {
 
         // Garante que subtotal seja sempre calculado
         if (this.precoUnitario != null && this.quantidade != null) {
-            this.subtotal = this.precoUnitario * this.quantidade;
+            this.subtotal = this.precoUnitario.multiplicar(this.quantidade);
         } else {
             throw new IllegalStateException("Não foi possível calcular subtotal: precoUnitario ou quantidade estão nulos");
         }
@@ -12,10 +12,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "movimentacao")
+@Table(name = "movimentacao", indexes = {
+        @Index(name = "idx_movimentacao_produto_data", columnList = "produto_id, data"),
+        @Index(name = "idx_movimentacao_data", columnList = "data"),
+        @Index(name = "idx_movimentacao_pendente_id", columnList = "pendente, id")
+})
 public class MovimentacaoEstoque {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimentacao_seq")
+    @SequenceGenerator(name = "movimentacao_seq", sequenceName = "movimentacao_seq", allocationSize = 50) // Permite inserts em lote
     private Long id;
 
     @ManyToOne
@@ -32,5 +37,10 @@ public class MovimentacaoEstoque {
     @Column(nullable = false)
     private LocalDateTime data;
 
+    // Baixa reservada em memória que ainda não foi descontada de Produto.quantidadeEstoque
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean pendente = false;
+
     // Getters e Setters
 }
\ No newline at end of file
@@ -2,11 +2,15 @@ package com.Loja.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Setter
 @Getter
@@ -14,7 +18,15 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "produto")
+@Table(name = "produto", indexes = {
+        @Index(name = "idx_produto_ativo_nome_busca", columnList = "ativo, nome_busca")
+})
+// Cache de segundo nível (região "produto", configurada em application.conf). Cada alteração de estoque em SQL
+// direto (ProdutoRepositoryCustomImpl) remove o produto do cache; com @DynamicUpdate, salvar a entidade
+// grava só as colunas alteradas e nunca devolve ao banco um estoque lido do cache
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produto")
+@DynamicUpdate
 @SQLDelete(sql = "UPDATE produto SET ativo = false WHERE id = ?") // Hibernate irá executar isso ao invés de DELETE
 @Where(clause = "ativo = true") // Filtra automaticamente apenas produtos ativos
 public class Produto {
@@ -25,14 +37,18 @@ public class Produto {
     @Column(nullable = false)
     private String nome;
 
+    // Nome normalizado (minúsculo) usado na busca por prefixo, coberto pelo índice idx_produto_ativo_nome_busca
+    @Column(name = "nome_busca")
+    private String nomeBusca;
+
     @Column(nullable = false)
     private String descricao;
 
-    @Column(nullable = false)
-    private Double precoCompra;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro precoCompra;
 
-    @Column(nullable = false)
-    private Double precoVenda;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro precoVenda;
 
     @Column(nullable = false)
     private Integer quantidadeEstoque;
@@ -46,5 +62,15 @@ public class Produto {
     private boolean ativo = true;
 
 
+    @PrePersist
+    @PreUpdate
+    private void normalizarNomeBusca() {
+        this.nomeBusca = normalizarNome(nome);
+    }
+
+    public static String normalizarNome(String nome) {
+        return nome == null ? null : nome.trim().toLowerCase(Locale.ROOT);
+    }
+
     // Getters e Setters
 }
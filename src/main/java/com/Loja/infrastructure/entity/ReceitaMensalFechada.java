@@ -0,0 +1,32 @@
+package com.Loja.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Totais de um mês já encerrado, gravados na primeira consulta após o fechamento
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "receita_mensal_fechada")
+public class ReceitaMensalFechada {
+    // Primeiro dia do mês
+    @Id
+    private LocalDate mes;
+
+    @Column(nullable = false)
+    private Long receitaCentavos;
+
+    @Column(nullable = false)
+    private Long custoCentavos;
+
+    @Column(nullable = false)
+    private LocalDateTime fechadoEm;
+
+    // Getters e Setters
+}
@@ -0,0 +1,39 @@
+package com.Loja.infrastructure.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Totais de vendas consolidados por dia, mantidos a cada venda realizada. Cada dia é dividido em faixas
+// para que vendas simultâneas não disputem a mesma linha; os totais do dia são a soma das faixas
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "resumo_venda_diario")
+@IdClass(ResumoVendaDiarioId.class)
+public class ResumoVendaDiario {
+    @Id
+    private LocalDate dia;
+
+    @Id
+    private Integer faixa;
+
+    // Valores em centavos, somados diretamente como inteiros
+    @Column(nullable = false)
+    private Long receitaCentavos;
+
+    @Column(nullable = false)
+    private Long custoCentavos;
+
+    @Column(nullable = false)
+    private Long quantidadeItens;
+
+    @Column(nullable = false)
+    private Long quantidadeVendas;
+
+    // Getters e Setters
+}
@@ -0,0 +1,17 @@
+package com.Loja.infrastructure.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Chave do resumo diário: o dia e a faixa em que a venda foi acumulada
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoVendaDiarioId implements Serializable {
+    private LocalDate dia;
+    private Integer faixa;
+}
@@ -1,5 +1,7 @@
 package com.Loja.infrastructure.entity.Specification;
 
+import com.Loja.infrastructure.entity.Dinheiro;
+
 import lombok.*;
 
 @Setter
@@ -10,8 +12,14 @@ import lombok.*;
 public class ProdutoFiltro {
 
     private String nome;
-    private Double precoMin;
-    private Double precoMax;
+    private Dinheiro precoMin;
+    private Dinheiro precoMax;
     private Boolean comEstoque;
 
+    // Paginação e ordenação (campo em ordenacao, direcao ASC ou DESC)
+    private Integer pagina;
+    private Integer tamanho;
+    private String ordenacao;
+    private String direcao;
+
 }
@@ -1,6 +1,7 @@
 package com.Loja.infrastructure.entity.Specification;
 
 import com.Loja.infrastructure.entity.Produto;
+import com.Loja.infrastructure.entity.Dinheiro;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,17 +11,22 @@ import org.springframework.data.jpa.domain.Specification;
 @Getter
 @Builder
 public class ProdutoSpecification {
-    public static Specification<Produto> comNomeSemelhante(String nome) {
+    // Busca por prefixo na coluna normalizada, o que permite ao banco usar o índice (LIKE 'x%')
+    public static Specification<Produto> comNomeIniciadoPor(String nome) {
+        String prefixo = Produto.normalizarNome(nome)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
         return (root, query, cb) ->
-                cb.like(cb.lower(root.get("nome")), "%" + nome.toLowerCase() + "%");
+                cb.like(root.get("nomeBusca"), prefixo + "%", '\\');
     }
 
-    public static Specification<Produto> comPrecoVendaMaiorQue(Double preco) {
+    public static Specification<Produto> comPrecoVendaMaiorQue(Dinheiro preco) {
         return (root, query, cb) ->
                 cb.greaterThanOrEqualTo(root.get("precoVenda"), preco);
     }
 
-    public static Specification<Produto> comPrecoVendaMenorQue(Double preco) {
+    public static Specification<Produto> comPrecoVendaMenorQue(Dinheiro preco) {
         return (root, query, cb) ->
                 cb.lessThanOrEqualTo(root.get("precoVenda"), preco);
     }
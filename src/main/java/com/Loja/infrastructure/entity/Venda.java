@@ -2,6 +2,7 @@ package com.Loja.infrastructure.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,7 +14,9 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "venda")
+@Table(name = "venda", indexes = {
+        @Index(name = "idx_venda_data_id", columnList = "data, id")
+})
 public class Venda {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,11 +26,12 @@ public class Venda {
     private LocalDateTime data;
 
     @OneToMany(mappedBy = "venda", cascade = CascadeType.ALL)
+    @BatchSize(size = 100) // Carrega os itens de até 100 vendas por consulta
     @Builder.Default
     private List<ItemVenda> itens = new ArrayList<>();
 
-    @Column(nullable = false)
-    private Double valorTotal;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Dinheiro valorTotal;
 
     // Getters e Setters
 }
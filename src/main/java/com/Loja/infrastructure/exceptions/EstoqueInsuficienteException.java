@@ -0,0 +1,9 @@
+package com.Loja.infrastructure.exceptions;
+
+// Conflito de estoque: a quantidade pedida é maior que a disponível
+public class EstoqueInsuficienteException extends ConflitException {
+
+    public EstoqueInsuficienteException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,32 @@
+package com.Loja.infrastructure.metricas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate na thread da requisição atual.
+ * A contagem só acontece entre iniciar() e encerrar(), chamados pelo MetricasSqlFilter;
+ * fora de requisições (jobs, inicialização) o inspector apenas devolve o SQL.
+ */
+public class ContadorComandosSql implements StatementInspector {
+
+    private static final ThreadLocal<long[]> CONTAGEM = new ThreadLocal<>();
+
+    static void iniciar() {
+        CONTAGEM.set(new long[1]);
+    }
+
+    static long encerrar() {
+        long[] contagem = CONTAGEM.get();
+        CONTAGEM.remove();
+        return contagem == null ? 0 : contagem[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] contagem = CONTAGEM.get();
+        if (contagem != null) {
+            contagem[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,57 @@
+package com.Loja.infrastructure.metricas;
+
+import com.Loja.infrastructure.security.Client.UsuarioClientResiliente;
+import com.Loja.infrastructure.security.JwtUtil;
+import com.Loja.infrastructure.security.UserDetailsServiceImpl;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricasConfig {
+
+    // Inspector do Hibernate usado pelo MetricasSqlFilter para contar comandos SQL por requisição
+    @Bean
+    public HibernatePropertiesCustomizer contadorComandosSql() {
+        return propriedades -> propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorComandosSql());
+    }
+
+    // Acertos, falhas e tamanho dos caches locais, estado do circuit breaker e vagas do bulkhead do usuario-app
+    @Bean
+    public MeterBinder metricasSeguranca(UserDetailsServiceImpl userDetailsService, JwtUtil jwtUtil,
+                                         UsuarioClientResiliente usuarioClient) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, userDetailsService.getCache(), "usuarios");
+            CaffeineCacheMetrics.monitor(registry, jwtUtil.getClaimsVerificadas(), "tokens-jwt");
+            CaffeineCacheMetrics.monitor(registry, usuarioClient.getUltimosConhecidos(), "usuarios-obsoletos");
+
+            Gauge.builder("loja.usuario_app.circuito.estado", usuarioClient,
+                            cliente -> estado(cliente.getCircuitBreaker().getState()))
+                    .description("Estado do circuit breaker do usuario-app (0 fechado, 1 aberto, 2 meio aberto, 3 outro)")
+                    .register(registry);
+            Gauge.builder("loja.usuario_app.circuito.taxa_falhas", usuarioClient,
+                            cliente -> cliente.getCircuitBreaker().getMetrics().getFailureRate())
+                    .description("Taxa de falhas na janela do circuit breaker (-1 enquanto não há chamadas suficientes)")
+                    .baseUnit("percent")
+                    .register(registry);
+            Gauge.builder("loja.usuario_app.bulkhead.disponiveis", usuarioClient,
+                            cliente -> cliente.getBulkhead().getMetrics().getAvailableConcurrentCalls())
+                    .description("Chamadas simultâneas ainda disponíveis no bulkhead do usuario-app")
+                    .register(registry);
+        };
+    }
+
+    private static double estado(CircuitBreaker.State estado) {
+        return switch (estado) {
+            case CLOSED -> 0;
+            case OPEN -> 1;
+            case HALF_OPEN -> 2;
+            default -> 3;
+        };
+    }
+}
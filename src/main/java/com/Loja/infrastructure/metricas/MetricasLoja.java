@@ -0,0 +1,133 @@
+package com.Loja.infrastructure.metricas;
+
+import com.Loja.infrastructure.exceptions.ConcurrencyException;
+import com.Loja.infrastructure.exceptions.ConflitException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas dos caminhos críticos da loja (vendas, relatórios e chamadas ao usuario-app),
+ * exportadas pelo endpoint /actuator/prometheus. Os nomes e tags ficam todos aqui para que
+ * os painéis e alertas tenham uma única referência.
+ */
+@Component
+public class MetricasLoja {
+
+    private final MeterRegistry registry;
+    private final DistributionSummary itensPorVenda;
+    private final Counter estoqueInsuficiente;
+    private final Counter estoqueAlteradoConcorrencia;
+    private final Counter fallbackObsoleto;
+    private final Counter fallbackIndisponivel;
+
+    public MetricasLoja(MeterRegistry registry) {
+        this.registry = registry;
+        this.itensPorVenda = DistributionSummary.builder("loja.venda.itens")
+                .description("Quantidade de itens por venda realizada")
+                .baseUnit("itens")
+                .register(registry);
+        this.estoqueInsuficiente = conflitoEstoque("insuficiente");
+        this.estoqueAlteradoConcorrencia = conflitoEstoque("concorrencia");
+        this.fallbackObsoleto = fallback("obsoleto");
+        this.fallbackIndisponivel = fallback("indisponivel");
+    }
+
+    public Timer.Sample iniciar() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Registra a duração e o resultado de uma tentativa de venda
+     * @param amostra Amostra iniciada antes do processamento
+     * @param itens Quantidade de itens pedidos
+     * @param falha Exceção que interrompeu a venda, ou null se ela foi concluída
+     */
+    public void registrarVenda(Timer.Sample amostra, int itens, Throwable falha) {
+        String resultado;
+        if (falha == null) {
+            resultado = "sucesso";
+            itensPorVenda.record(itens);
+        } else if (falha instanceof EstoqueInsuficienteException) {
+            resultado = "estoque_insuficiente";
+            estoqueInsuficiente.increment();
+        } else if (falha instanceof ConcurrencyException) {
+            resultado = "estoque_concorrencia";
+            estoqueAlteradoConcorrencia.increment();
+        } else if (falha instanceof ConflitException) {
+            resultado = "invalida";
+        } else {
+            resultado = "erro";
+        }
+        amostra.stop(Timer.builder("loja.venda.realizar")
+                .description("Duração das vendas por resultado")
+                .tag("resultado", resultado)
+                .register(registry));
+    }
+
+    /**
+     * Registra a duração de um relatório de receita e quantos resumos diários ele leu
+     * @param relatorio Nome do relatório (periodo, mensal)
+     * @param amostra Amostra iniciada antes da consulta
+     * @param linhasLidas Quantidade de linhas de resumo diário agregadas
+     */
+    public void registrarRelatorio(String relatorio, Timer.Sample amostra, long linhasLidas) {
+        amostra.stop(Timer.builder("loja.relatorio.duracao")
+                .description("Duração dos relatórios de receita")
+                .tag("relatorio", relatorio)
+                .register(registry));
+        DistributionSummary.builder("loja.relatorio.linhas")
+                .description("Resumos diários lidos por relatório")
+                .baseUnit("linhas")
+                .tag("relatorio", relatorio)
+                .register(registry)
+                .record(linhasLidas);
+    }
+
+    /**
+     * Registra a origem dos totais de meses fechados usados por um relatório de receita
+     * @param origem memoria, tabela (receita_mensal_fechada) ou calculado (somado dos resumos diários)
+     * @param meses Quantidade de meses
+     */
+    public void registrarMesesFechados(String origem, int meses) {
+        Counter.builder("loja.relatorio.meses_fechados")
+                .description("Meses fechados usados nos relatórios de receita, por origem dos totais")
+                .tag("origem", origem)
+                .register(registry)
+                .increment(meses);
+    }
+
+    /**
+     * Registra uma chamada ao usuario-app
+     * @param amostra Amostra iniciada antes da chamada
+     * @param resultado sucesso, erro_cliente (4xx), falha (rede, timeout, 5xx) ou rejeitada (circuito aberto, bulkhead cheio)
+     */
+    public void registrarChamadaUsuarioApp(Timer.Sample amostra, String resultado) {
+        amostra.stop(Timer.builder("loja.usuario_app.chamadas")
+                .description("Chamadas ao usuario-app por resultado")
+                .tag("resultado", resultado)
+                .register(registry));
+    }
+
+    // Fallback do usuario-app: respondido com o último usuário conhecido ou sem valor disponível
+    public void registrarFallbackUsuarioApp(boolean atendido) {
+        (atendido ? fallbackObsoleto : fallbackIndisponivel).increment();
+    }
+
+    private Counter conflitoEstoque(String tipo) {
+        return Counter.builder("loja.venda.conflitos.estoque")
+                .description("Vendas recusadas por falta de estoque ou alteração concorrente")
+                .tag("tipo", tipo)
+                .register(registry);
+    }
+
+    private Counter fallback(String resultado) {
+        return Counter.builder("loja.usuario_app.fallback")
+                .description("Chamadas ao usuario-app atendidas pelo fallback")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
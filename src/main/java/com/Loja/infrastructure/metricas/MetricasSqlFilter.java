@@ -0,0 +1,42 @@
+package com.Loja.infrastructure.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Registra quantos comandos SQL cada requisição executou, por rota, para detectar N+1 e regressões
+@Component
+@RequiredArgsConstructor
+public class MetricasSqlFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContadorComandosSql.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long comandos = ContadorComandosSql.encerrar();
+            // Rota mapeada (ex.: /admin/loja/produtos/{id}) para não criar uma série por ID
+            Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("loja.http.sql.comandos")
+                    .description("Comandos SQL executados por requisição")
+                    .baseUnit("comandos")
+                    .tag("method", request.getMethod())
+                    .tag("uri", rota != null ? rota.toString() : "NAO_MAPEADA")
+                    .register(registry)
+                    .record(comandos);
+        }
+    }
+}
@@ -2,15 +2,35 @@ package com.Loja.infrastructure.repository;
 
 
 import com.Loja.infrastructure.entity.MovimentacaoEstoque;
+import com.Loja.infrastructure.repository.projection.MovimentacaoPendenteProjection;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MovimentacaoEstoqueRepository extends JpaRepository<MovimentacaoEstoque, Long> {
-    List<MovimentacaoEstoque> findByProdutoId(Long produtoId);
+    // Filtra pela chave estrangeira, sem junção com produto, para usar idx_movimentacao_produto_data
+    @Query("SELECT m FROM MovimentacaoEstoque m WHERE m.produto.id = :produtoId ORDER BY m.data")
+    List<MovimentacaoEstoque> findByProdutoId(@Param("produtoId") Long produtoId);
 
     List<MovimentacaoEstoque> findByDataBetween(LocalDateTime inicio, LocalDateTime fim);
+
+    // Bloqueia as linhas lidas para que duas aplicações simultâneas não baixem o mesmo estoque duas vezes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.id AS id, m.produto.id AS produtoId, m.quantidade AS quantidade " +
+            "FROM MovimentacaoEstoque m WHERE m.pendente = true ORDER BY m.id")
+    List<MovimentacaoPendenteProjection> buscarPendentes(Limit limite);
+
+    @Modifying
+    @Query("UPDATE MovimentacaoEstoque m SET m.pendente = false WHERE m.id IN :ids")
+    int marcarAplicadas(@Param("ids") Collection<Long> ids);
 }
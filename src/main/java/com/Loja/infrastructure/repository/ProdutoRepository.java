@@ -1,7 +1,10 @@
 package com.Loja.infrastructure.repository;
 
 
+import com.Loja.business.dto.out.ProdutoResponseDTO;
 import com.Loja.infrastructure.entity.Produto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -12,19 +15,37 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProdutoRepository extends JpaRepository<Produto, Long>, JpaSpecificationExecutor<Produto> {
-    List<Produto> findByNomeContainingIgnoreCase(String nome);
-
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, JpaSpecificationExecutor<Produto>,
+        ProdutoRepositoryCustom {
     // Busca apenas produtos ativos
     List<Produto> findByAtivoTrue();
 
     // Busca por ID apenas se estiver ativo
     Optional<Produto> findByIdAndAtivoTrue(Long id);
 
+    // Leituras do catálogo projetadas direto no DTO, sem entidades no contexto de persistência
+    @Query("SELECT new com.Loja.business.dto.out.ProdutoResponseDTO(p.nome, p.descricao, p.precoCompra, " +
+            "p.precoVenda, p.quantidadeEstoque) FROM Produto p WHERE p.ativo = true")
+    Slice<ProdutoResponseDTO> listarResumoAtivos(Pageable pageable);
+
+    @Query("SELECT new com.Loja.business.dto.out.ProdutoResponseDTO(p.nome, p.descricao, p.precoCompra, " +
+            "p.precoVenda, p.quantidadeEstoque) FROM Produto p WHERE p.id = :id AND p.ativo = true")
+    Optional<ProdutoResponseDTO> buscarResumoAtivoPorId(@Param("id") Long id);
+
     @Query("SELECT p FROM Produto p WHERE p.id = :id")
     Optional<Produto> findByIdIncludingDeleted(@Param("id") Long id);
 
     // Método padrão que ignora deletados
     Optional<Produto> findById(Long id);
+
+    // Estoque gravado, sem passar pelo cache de segundo nível
+    @Query("SELECT p.quantidadeEstoque FROM Produto p WHERE p.id = :id")
+    Optional<Integer> consultarEstoque(@Param("id") Long id);
+
+    // Saldo disponível = estoque gravado menos as baixas reservadas que ainda não foram aplicadas
+    @Query("SELECT p.quantidadeEstoque - COALESCE((SELECT SUM(m.quantidade) FROM MovimentacaoEstoque m " +
+            "WHERE m.produto.id = p.id AND m.pendente = true), 0) " +
+            "FROM Produto p WHERE p.id = :id AND p.ativo = true")
+    Optional<Long> consultarSaldoDisponivel(@Param("id") Long id);
 }
 
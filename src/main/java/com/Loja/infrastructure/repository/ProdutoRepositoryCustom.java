@@ -0,0 +1,34 @@
+package com.Loja.infrastructure.repository;
+
+
+import com.Loja.business.dto.out.ProdutoResponseDTO;
+import com.Loja.infrastructure.entity.Produto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProdutoRepositoryCustom {
+
+    // Pesquisa com filtros dinâmicos devolvendo DTOs direto da consulta, sem entidades gerenciadas.
+    // Retorna um Slice: busca uma linha a mais para saber se há próxima página, sem executar COUNT
+    Slice<ProdutoResponseDTO> pesquisarResumo(Specification<Produto> spec, Pageable pageable);
+
+    // Carrega os produtos ativos pelos IDs consultando antes o cache de segundo nível; só os ausentes vão ao banco
+    List<Produto> buscarAtivosPorIds(Collection<Long> ids);
+
+    // Baixa atômica: só altera a linha se ainda houver estoque suficiente (retorna 0 caso contrário)
+    int baixarEstoque(Long id, Integer quantidade);
+
+    // Entrada atômica, sem ler e regravar o valor anterior
+    int reporEstoque(Long id, Integer quantidade);
+
+    // Aplica uma baixa já garantida pela reserva em memória. Mesmo assim só baixa se houver saldo:
+    // retorna 0 em vez de deixar o estoque negativo
+    int aplicarBaixaPendente(Long id, Integer quantidade);
+
+    // Remove o produto do cache de segundo nível, na hora e de novo ao fim da transação
+    void invalidarCache(Long id);
+}
@@ -0,0 +1,131 @@
+package com.Loja.infrastructure.repository;
+
+
+import com.Loja.business.dto.out.ProdutoResponseDTO;
+import com.Loja.infrastructure.entity.Produto;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+public class ProdutoRepositoryCustomImpl implements ProdutoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<ProdutoResponseDTO> pesquisarResumo(Specification<Produto> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProdutoResponseDTO> query = cb.createQuery(ProdutoResponseDTO.class);
+        Root<Produto> root = query.from(Produto.class);
+
+        query.select(cb.construct(ProdutoResponseDTO.class,
+                root.get("nome"),
+                root.get("descricao"),
+                root.get("precoCompra"),
+                root.get("precoVenda"),
+                root.get("quantidadeEstoque")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        List<ProdutoResponseDTO> conteudo = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean temProxima = conteudo.size() > pageable.getPageSize();
+        if (temProxima) {
+            conteudo = conteudo.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(conteudo, pageable, temProxima);
+    }
+
+    @Override
+    public List<Produto> buscarAtivosPorIds(Collection<Long> ids) {
+        // Sem CacheMode explícito o multiLoad não consulta o cache de segundo nível.
+        // O filtro de ativos é refeito aqui porque produtos vindos do cache não passam pelo @Where
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(Produto.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(List.copyOf(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .filter(Produto::isAtivo)
+                .toList();
+    }
+
+    // As atualizações de estoque são comandos nativos que declaram um espaço de consulta próprio, que não corresponde a
+    // nenhuma tabela mapeada: sem ele (ou declarando "produto") o Hibernate esvaziaria a região inteira do cache de
+    // Produto a cada venda. Em troca, cada comando faz o que o espaço "produto" faria só para a linha alterada:
+    // grava antes as alterações pendentes e remove do cache o produto cujo estoque mudou
+    private static final String ESPACO_ESTOQUE = "produto_estoque";
+
+    @Override
+    public int baixarEstoque(Long id, Integer quantidade) {
+        return atualizarEstoque("UPDATE produto SET quantidade_estoque = quantidade_estoque - :quantidade " +
+                "WHERE id = :id AND ativo = true AND quantidade_estoque >= :quantidade", id, quantidade);
+    }
+
+    @Override
+    public int reporEstoque(Long id, Integer quantidade) {
+        return atualizarEstoque("UPDATE produto SET quantidade_estoque = quantidade_estoque + :quantidade " +
+                "WHERE id = :id AND ativo = true", id, quantidade);
+    }
+
+    @Override
+    public int aplicarBaixaPendente(Long id, Integer quantidade) {
+        return atualizarEstoque("UPDATE produto SET quantidade_estoque = quantidade_estoque - :quantidade " +
+                "WHERE id = :id AND quantidade_estoque >= :quantidade", id, quantidade);
+    }
+
+    // Remove agora, para as leituras seguintes desta transação, e de novo ao fim dela, descartando
+    // o que outra transação tenha colocado no cache a partir do valor anterior à alteração
+    @Override
+    public void invalidarCache(Long id) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Produto.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Produto.class, id);
+                }
+            });
+        }
+    }
+
+    // O flush automático só considera o espaço sintético, então alterações pendentes de Produto seriam gravadas
+    // depois do UPDATE, sobre o estoque já alterado. O produto sai do cache mesmo que nenhuma linha mude, o que é
+    // inofensivo: a próxima leitura o traz de volta do banco
+    private int atualizarEstoque(String sql, Long id, Integer quantidade) {
+        entityManager.flush();
+        NativeQuery<?> comando = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        int linhas = comando.addSynchronizedQuerySpace(ESPACO_ESTOQUE)
+                .setParameter("id", id)
+                .setParameter("quantidade", quantidade)
+                .executeUpdate();
+        invalidarCache(id);
+        return linhas;
+    }
+}
@@ -0,0 +1,43 @@
+package com.Loja.infrastructure.repository;
+
+
+import com.Loja.infrastructure.entity.ReceitaMensalFechada;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReceitaMensalFechadaRepository extends JpaRepository<ReceitaMensalFechada, LocalDate> {
+
+    // Meses fechados do intervalo, pela chave primária (primeiro dia do mês)
+    @Query("SELECT r FROM ReceitaMensalFechada r WHERE r.mes BETWEEN :inicio AND :fim")
+    List<ReceitaMensalFechada> buscarPorPeriodo(@Param("inicio") LocalDate inicio,
+                                                @Param("fim") LocalDate fim);
+
+    // Grava os totais do mês; duas consultas simultâneas calculam o mesmo valor, então a segunda só o regrava
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "receita_mensal_fechada"))
+    @Query(value = "INSERT INTO receita_mensal_fechada (mes, receita_centavos, custo_centavos, fechado_em) " +
+            "VALUES (:mes, :receita, :custo, :fechadoEm) " +
+            "ON DUPLICATE KEY UPDATE receita_centavos = VALUES(receita_centavos), " +
+            "custo_centavos = VALUES(custo_centavos), fechado_em = VALUES(fechado_em)",
+            nativeQuery = true)
+    void gravar(@Param("mes") LocalDate mes,
+                @Param("receita") Long receitaCentavos,
+                @Param("custo") Long custoCentavos,
+                @Param("fechadoEm") LocalDateTime fechadoEm);
+
+    @Modifying
+    @Query("DELETE FROM ReceitaMensalFechada r WHERE r.mes BETWEEN :inicio AND :fim")
+    int deletarPorPeriodo(@Param("inicio") LocalDate inicio,
+                          @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,74 @@
+package com.Loja.infrastructure.repository;
+
+
+import com.Loja.infrastructure.entity.ResumoVendaDiario;
+import com.Loja.infrastructure.entity.ResumoVendaDiarioId;
+import com.Loja.infrastructure.repository.projection.ReceitaMensalProjection;
+import com.Loja.infrastructure.repository.projection.ReceitaTotaisProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumoVendaDiarioRepository extends JpaRepository<ResumoVendaDiario, ResumoVendaDiarioId> {
+
+    // Soma os totais de uma venda a uma faixa do resumo do dia, criando a linha se ainda não existir.
+    // Os comandos nativos declaram a tabela que alteram: sem isso o Hibernate esvazia todo o cache de segundo nível
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumo_venda_diario"))
+    @Query(value = "INSERT INTO resumo_venda_diario (dia, faixa, receita_centavos, custo_centavos, quantidade_itens, quantidade_vendas) " +
+            "VALUES (:dia, :faixa, :receita, :custo, :itens, 1) " +
+            "ON DUPLICATE KEY UPDATE receita_centavos = receita_centavos + VALUES(receita_centavos), " +
+            "custo_centavos = custo_centavos + VALUES(custo_centavos), " +
+            "quantidade_itens = quantidade_itens + VALUES(quantidade_itens), " +
+            "quantidade_vendas = quantidade_vendas + 1",
+            nativeQuery = true)
+    void acumularVenda(@Param("dia") LocalDate dia,
+                       @Param("faixa") int faixa,
+                       @Param("receita") Long receitaCentavos,
+                       @Param("custo") Long custoCentavos,
+                       @Param("itens") Long itens);
+
+    @Query("SELECT COALESCE(SUM(r.receitaCentavos), 0) AS receitaCentavos, " +
+            "COALESCE(SUM(r.custoCentavos), 0) AS custoCentavos, COUNT(r) AS linhas " +
+            "FROM ResumoVendaDiario r WHERE r.dia BETWEEN :inicio AND :fim")
+    ReceitaTotaisProjection somarPorPeriodo(@Param("inicio") LocalDate inicio,
+                                            @Param("fim") LocalDate fim);
+
+    // Agrupa os resumos diários por mês (no máximo 31 dias, vezes as faixas usadas, são lidos por mês)
+    @Query("SELECT MONTH(r.dia) AS mes, SUM(r.receitaCentavos) AS receitaCentavos, " +
+            "SUM(r.custoCentavos) AS custoCentavos, SUM(r.quantidadeVendas) AS quantidadeVendas, COUNT(r) AS linhas " +
+            "FROM ResumoVendaDiario r WHERE r.dia BETWEEN :inicio AND :fim " +
+            "GROUP BY MONTH(r.dia) ORDER BY MONTH(r.dia)")
+    List<ReceitaMensalProjection> somarPorMes(@Param("inicio") LocalDate inicio,
+                                              @Param("fim") LocalDate fim);
+
+    @Modifying
+    @Query("DELETE FROM ResumoVendaDiario r WHERE r.dia BETWEEN :inicio AND :fim")
+    int deletarPorPeriodo(@Param("inicio") LocalDate inicio,
+                          @Param("fim") LocalDate fim);
+
+    // Recalcula os resumos a partir das vendas e itens gravados no período (valores DECIMAL convertidos para centavos),
+    // uma linha por dia na faixa 0
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumo_venda_diario"))
+    @Query(value = "INSERT INTO resumo_venda_diario (dia, faixa, receita_centavos, custo_centavos, quantidade_itens, quantidade_vendas) " +
+            "SELECT CAST(v.data AS DATE), 0, SUM(ROUND(i.subtotal * 100)), " +
+            "SUM(ROUND(i.produto_preco_compra * 100) * i.quantidade), " +
+            "SUM(i.quantidade), COUNT(DISTINCT v.id) " +
+            "FROM venda v JOIN item_venda i ON i.venda_id = v.id " +
+            "WHERE v.data >= :inicio AND v.data < :fim " +
+            "GROUP BY CAST(v.data AS DATE)",
+            nativeQuery = true)
+    int recalcularPorPeriodo(@Param("inicio") LocalDateTime inicio,
+                             @Param("fim") LocalDateTime fim);
+}
@@ -2,16 +2,25 @@ package com.Loja.infrastructure.repository;
 
 
 import com.Loja.infrastructure.entity.Venda;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface VendaRepository extends JpaRepository<Venda, Long> {
+    // Traz as vendas já com os itens, em uma única consulta
+    @EntityGraph(attributePaths = "itens")
     List<Venda> findByDataBetween(LocalDateTime inicio, LocalDateTime fim);
 
 
@@ -22,6 +31,30 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
             @Param("fim") LocalDateTime fim);
 
     // Consulta otimizada para buscar meses que têm vendas (opcional)
-    @Query("SELECT DISTINCT YEAR(v.data) as ano, MONTH(v.data) as mes FROM Venda v WHERE YEAR(v.data) = :ano ORDER BY mes")
-    List<Object[]> findMesesComVendasPorAno(@Param("ano") int ano);
+    default List<Object[]> findMesesComVendasPorAno(int ano) {
+        return findMesesComVendasNoPeriodo(LocalDate.of(ano, 1, 1).atStartOfDay(),
+                LocalDate.of(ano + 1, 1, 1).atStartOfDay());
+    }
+
+    // Filtra por intervalo de data (e não por YEAR(v.data)) para que o índice idx_venda_data_id seja usado
+    @Query("SELECT DISTINCT YEAR(v.data) as ano, MONTH(v.data) as mes FROM Venda v " +
+            "WHERE v.data >= :inicio AND v.data < :fim ORDER BY mes")
+    List<Object[]> findMesesComVendasNoPeriodo(
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    // Paginação por chave (data, id): continua após a última venda devolvida, sem OFFSET
+    @Query("SELECT v FROM Venda v WHERE v.data BETWEEN :inicio AND :fim " +
+            "AND (v.data > :aposData OR (v.data = :aposData AND v.id > :aposId)) ORDER BY v.data, v.id")
+    List<Venda> buscarPaginaPorPeriodo(
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim,
+            @Param("aposData") LocalDateTime aposData,
+            @Param("aposId") Long aposId,
+            Limit limite);
+
+    // Vendas de uma página (com os itens) em uma única consulta, na ordem da paginação por chave
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT v FROM Venda v LEFT JOIN FETCH v.itens WHERE v.id IN :ids ORDER BY v.data, v.id")
+    List<Venda> buscarComItensPorIds(@Param("ids") Collection<Long> ids);
 }
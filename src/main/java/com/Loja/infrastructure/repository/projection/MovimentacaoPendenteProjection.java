@@ -0,0 +1,11 @@
+package com.Loja.infrastructure.repository.projection;
+
+// Projeção de uma baixa de estoque reservada em memória e ainda não aplicada ao produto
+public interface MovimentacaoPendenteProjection {
+
+    Long getId();
+
+    Long getProdutoId();
+
+    Integer getQuantidade();
+}
@@ -0,0 +1,16 @@
+package com.Loja.infrastructure.repository.projection;
+
+// Projeção com os totais (em centavos) de receita, custo e quantidade de vendas agrupados por mês
+public interface ReceitaMensalProjection {
+
+    Integer getMes();
+
+    Long getReceitaCentavos();
+
+    Long getCustoCentavos();
+
+    Long getQuantidadeVendas();
+
+    // Quantidade de linhas do resumo diário agregadas no mês
+    Long getLinhas();
+}
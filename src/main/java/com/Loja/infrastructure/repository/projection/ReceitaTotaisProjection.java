@@ -0,0 +1,12 @@
+package com.Loja.infrastructure.repository.projection;
+
+// Projeção com os totais agregados (em centavos) de receita e custo de um período
+public interface ReceitaTotaisProjection {
+
+    Long getReceitaCentavos();
+
+    Long getCustoCentavos();
+
+    // Quantidade de linhas do resumo diário agregadas
+    Long getLinhas();
+}
@@ -0,0 +1,127 @@
+package com.Loja.infrastructure.security;
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Autorização a partir das claims do token assinado com jwt.secret, sem chamar o usuario-app na requisição.
+ * O usuario-app só é consultado em segundo plano, para detectar usuários revogados.
+ */
+@Service
+@RequiredArgsConstructor
+public class AutorizacaoLocalService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutorizacaoLocalService.class);
+    private static final String PREFIXO_ROLE = "ROLE_";
+
+    private final RevalidacaoUsuarioTask revalidacaoTask;
+
+    @Value("${loja.seguranca.autorizacao-local.habilitada:false}")
+    private boolean habilitada;
+
+    // Claim do token que contém o perfil (texto) ou a lista de perfis do usuário
+    @Value("${loja.seguranca.autorizacao-local.claim-roles:role}")
+    private String claimRoles;
+
+    // Intervalo mínimo entre duas revalidações do mesmo usuário no usuario-app
+    @Value("${loja.seguranca.autorizacao-local.intervalo-revalidacao:5m}")
+    private Duration intervaloRevalidacao;
+
+    // Por quanto tempo um usuário revogado continua bloqueado sem nova consulta
+    @Value("${loja.seguranca.autorizacao-local.ttl-revogacao:1h}")
+    private Duration ttlRevogacao;
+
+    @Value("${loja.seguranca.autorizacao-local.tamanho-maximo:10000}")
+    private long tamanhoMaximo;
+
+    private Cache<String, Boolean> revalidadosRecentemente;
+    private Cache<String, Boolean> revogados;
+
+    @PostConstruct
+    void inicializarCaches() {
+        revalidadosRecentemente = Caffeine.newBuilder()
+                .expireAfterWrite(intervaloRevalidacao)
+                .maximumSize(tamanhoMaximo)
+                .build();
+        revogados = Caffeine.newBuilder()
+                .expireAfterWrite(ttlRevogacao)
+                .maximumSize(tamanhoMaximo)
+                .build();
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Monta o usuário autenticado a partir das claims já verificadas do token
+     * @param claims Claims do token (assinatura e expiração já validadas)
+     * @param authorizationHeader Header Authorization, usado apenas na revalidação em segundo plano
+     * @return UserDetails do token, ou null se o usuário foi revogado
+     */
+    public UserDetails carregarDasClaims(Claims claims, String authorizationHeader) {
+        String email = claims.getSubject();
+        if (revogados.getIfPresent(email) != null) {
+            return null;
+        }
+
+        Set<String> roles = extrairRoles(claims);
+        solicitarRevalidacao(email, authorizationHeader, roles);
+
+        return User
+                .withUsername(email)
+                .password("") // A senha não é usada: a autenticação vem da assinatura do token
+                .authorities(roles.stream().map(role -> new SimpleGrantedAuthority(PREFIXO_ROLE + role)).toList())
+                .build();
+    }
+
+    // Remove a marcação de revogado, por exemplo depois que o acesso do usuário foi restabelecido
+    public void limpar(String email) {
+        revogados.invalidate(email);
+        revalidadosRecentemente.invalidate(email);
+    }
+
+    private void solicitarRevalidacao(String email, String authorizationHeader, Set<String> roles) {
+        // Apenas uma revalidação por usuário a cada intervalo, mesmo com requisições simultâneas
+        if (revalidadosRecentemente.asMap().putIfAbsent(email, Boolean.TRUE) != null) {
+            return;
+        }
+        revalidacaoTask.usuarioContinuaValido(email, authorizationHeader, roles)
+                .thenAccept(valido -> {
+                    if (!valido) {
+                        log.warn("Usuário {} revogado no usuario-app; tokens locais deixam de ser aceitos", email);
+                        revogados.put(email, Boolean.TRUE);
+                    }
+                });
+    }
+
+    private Set<String> extrairRoles(Claims claims) {
+        Object valor = claims.get(claimRoles);
+        Collection<?> valores = valor instanceof Collection<?> colecao ? colecao
+                : valor != null ? List.of(valor) : List.of();
+
+        Set<String> roles = new LinkedHashSet<>();
+        for (Object item : valores) {
+            String role = String.valueOf(item);
+            roles.add(role.startsWith(PREFIXO_ROLE) ? role.substring(PREFIXO_ROLE.length()) : role);
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,150 @@
+package com.Loja.infrastructure.security.Client;
+
+
+import com.Loja.business.dto.ClientDTO.UsuarioResponseDTO;
+import com.Loja.infrastructure.exceptions.ServicoIndisponivelException;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Acesso protegido ao usuario-app: limita as chamadas simultâneas (bulkhead), deixa de chamar o serviço
+ * enquanto ele está falhando ou lento (circuit breaker) e, nesses casos, responde com o último usuário
+ * conhecido. Erros 4xx são respostas válidas do serviço e chegam ao chamador sem fallback.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsuarioClientResiliente {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioClientResiliente.class);
+
+    private final UsuarioClient client;
+    private final MetricasLoja metricas;
+
+    // Máximo de chamadas em andamento; as excedentes falham na hora em vez de segurar threads do Tomcat
+    @Value("${loja.usuario-client.bulkhead.chamadas-simultaneas:20}")
+    private int chamadasSimultaneas;
+
+    @Value("${loja.usuario-client.bulkhead.espera-maxima:0ms}")
+    private Duration esperaMaximaBulkhead;
+
+    @Value("${loja.usuario-client.circuit-breaker.taxa-falhas:50}")
+    private float taxaFalhas;
+
+    @Value("${loja.usuario-client.circuit-breaker.janela:20}")
+    private int janela;
+
+    @Value("${loja.usuario-client.circuit-breaker.chamada-lenta:1s}")
+    private Duration chamadaLenta;
+
+    @Value("${loja.usuario-client.circuit-breaker.tempo-aberto:10s}")
+    private Duration tempoAberto;
+
+    // Por quanto tempo o último usuário conhecido pode ser usado como fallback
+    @Value("${loja.usuario-client.cache-obsoleto.ttl:1h}")
+    private Duration ttlCacheObsoleto;
+
+    @Value("${loja.usuario-client.cache-obsoleto.tamanho-maximo:10000}")
+    private long tamanhoMaximoCacheObsoleto;
+
+    @Getter
+    private CircuitBreaker circuitBreaker;
+    @Getter
+    private Bulkhead bulkhead;
+    @Getter
+    private Cache<String, UsuarioResponseDTO> ultimosConhecidos;
+
+    @PostConstruct
+    void inicializar() {
+        bulkhead = Bulkhead.of("usuario", BulkheadConfig.custom()
+                .maxConcurrentCalls(chamadasSimultaneas)
+                .maxWaitDuration(esperaMaximaBulkhead)
+                .build());
+        circuitBreaker = CircuitBreaker.of("usuario", CircuitBreakerConfig.custom()
+                .failureRateThreshold(taxaFalhas)
+                .slowCallRateThreshold(taxaFalhas)
+                .slowCallDurationThreshold(chamadaLenta)
+                .slidingWindowSize(janela)
+                .minimumNumberOfCalls(Math.max(1, janela / 2))
+                .waitDurationInOpenState(tempoAberto)
+                .recordException(UsuarioClientResiliente::isFalhaDoServico)
+                .build());
+        ultimosConhecidos = Caffeine.newBuilder()
+                .expireAfterWrite(ttlCacheObsoleto)
+                .maximumSize(tamanhoMaximoCacheObsoleto)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Busca o usuário no usuario-app com bulkhead, circuit breaker e fallback para o último valor conhecido
+     * @param email Email do usuário
+     * @param token Header Authorization repassado ao usuario-app
+     * @return Usuário encontrado (possivelmente obsoleto, se o serviço estiver indisponível)
+     * @throws FeignException Se o usuario-app responder com erro 4xx
+     * @throws ServicoIndisponivelException Se o serviço estiver indisponível e não houver valor conhecido
+     */
+    public UsuarioResponseDTO buscaUsuarioPorEmail(String email, String token) {
+        Supplier<UsuarioResponseDTO> chamada = CircuitBreaker.decorateSupplier(circuitBreaker,
+                Bulkhead.decorateSupplier(bulkhead, () -> client.buscaUsuarioPorEmail(email, token)));
+        Timer.Sample amostra = metricas.iniciar();
+        try {
+            UsuarioResponseDTO usuario = chamada.get();
+            metricas.registrarChamadaUsuarioApp(amostra, "sucesso");
+            if (usuario != null) {
+                ultimosConhecidos.put(email, usuario);
+            }
+            return usuario;
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            metricas.registrarChamadaUsuarioApp(amostra, "rejeitada");
+            return ultimoConhecido(email, e);
+        } catch (FeignException e) {
+            metricas.registrarChamadaUsuarioApp(amostra, isFalhaDoServico(e) ? "falha" : "erro_cliente");
+            if (!isFalhaDoServico(e)) {
+                // O serviço respondeu: usuário removido ou sem acesso não deve ser servido do cache
+                ultimosConhecidos.invalidate(email);
+                throw e;
+            }
+            return ultimoConhecido(email, e);
+        }
+    }
+
+    private UsuarioResponseDTO ultimoConhecido(String email, RuntimeException causa) {
+        UsuarioResponseDTO usuario = ultimosConhecidos.getIfPresent(email);
+        metricas.registrarFallbackUsuarioApp(usuario != null);
+        if (usuario == null) {
+            throw new ServicoIndisponivelException("Serviço de usuários indisponível", causa);
+        }
+        log.warn("usuario-app indisponível ({}); usando último valor conhecido para {}", causa.getMessage(), email);
+        return usuario;
+    }
+
+    // Falhas de rede, timeouts e 5xx contam para abrir o circuito; 4xx e bulkhead cheio não
+    private static boolean isFalhaDoServico(Throwable e) {
+        if (e instanceof BulkheadFullException) {
+            return false;
+        }
+        if (e instanceof FeignException feignException) {
+            return feignException.status() < 400 || feignException.status() >= 500;
+        }
+        return true;
+    }
+}
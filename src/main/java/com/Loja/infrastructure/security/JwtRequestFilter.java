@@ -1,5 +1,8 @@
 package com.Loja.infrastructure.security;
 
+import com.Loja.infrastructure.exceptions.ServicoIndisponivelException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 
@@ -21,12 +24,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     // Define propriedades para armazenar instâncias de JwtUtil e UserDetailsService
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final AutorizacaoLocalService autorizacaoLocalService;
 
 
     // Construtor que inicializa as propriedades com instâncias fornecidas
-    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService) {
+    public JwtRequestFilter(JwtUtil jwtUtil, UserDetailsServiceImpl userDetailsService,
+                            AutorizacaoLocalService autorizacaoLocalService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.autorizacaoLocalService = autorizacaoLocalService;
     }
 
     // Método chamado uma vez por requisição para processar o filtro
@@ -34,8 +40,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        System.out.println("MétodoII: " + request.getMethod()); // Log do método HTTP
-        System.out.println("PathII: " + request.getRequestURI());
+        log.debug("Requisição {} {}", request.getMethod(), request.getRequestURI());
 
 
         // Obtém o valor do header "Authorization" da requisição
@@ -46,32 +51,52 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             // Extrai o token JWT do cabeçalho
             final String token = authorizationHeader.substring(7);
+            // Analisa o token uma única vez; as claims são reaproveitadas nas verificações abaixo
+            final Claims claims;
+            try {
+                claims = jwtUtil.extractClaims(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Token JWT inválido: {}", e.getMessage());
+                chain.doFilter(request, response);
+                return;
+            }
             // Extrai o nome de usuário do token JWT
-            final String username = jwtUtil.extrairEmailToken(token);
+            final String username = claims.getSubject();
 
             log.debug("Processando token JWT: {}", token != null ? token.substring(0, 10) + "..." : "null");
 
             // Se o nome de usuário não for nulo e o usuário não estiver autenticado ainda
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Carrega os detalhes do usuário a partir do nome de usuário
-                UserDetails userDetails = userDetailsService.carregaDadosUsuario(username, authorizationHeader);
-                log.debug("Processando user detaJWT: {}", token != null ? token.substring(0, 10) + "..." : "null");
-                // Valida o token JWT
-                if (jwtUtil.validateToken(token, username)) {
+                // Valida o token JWT (a assinatura já foi verificada ao extrair as claims)
+                if (!jwtUtil.isExpirado(claims)) {
+                    // No modo local, perfis vêm das claims assinadas; caso contrário, do usuario-app
+                    UserDetails userDetails;
+                    try {
+                        userDetails = autorizacaoLocalService.isHabilitada()
+                                ? autorizacaoLocalService.carregarDasClaims(claims, authorizationHeader)
+                                : userDetailsService.carregaDadosUsuario(username, authorizationHeader);
+                    } catch (ServicoIndisponivelException e) {
+                        // usuario-app fora do ar e usuário desconhecido: responde na hora, sem ocupar a thread
+                        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                        return;
+                    }
+                    // Usuário revogado: segue sem autenticação
+                    if (userDetails == null) {
+                        chain.doFilter(request, response);
+                        return;
+                    }
+                    log.debug("Processando user detaJWT: {}", token != null ? token.substring(0, 10) + "..." : "null");
                     // Cria um objeto de autenticação com as informações do usuário
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     // Define a autenticação no contexto de segurança
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    System.out.println("Métodoii: " + authentication); // Log do método HTTP
-                    System.out.println("Pathii: " + request.getRequestURI());
 
                 }
 
 
             }
         }
-        System.out.println("MétodoBB: " + request.getMethod());
         // Continua a cadeia de filtros, permitindo que a requisição prossiga
         chain.doFilter(request, response);
     }
@@ -1,13 +1,22 @@
 package com.Loja.infrastructure.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 
 @Service
@@ -18,15 +27,45 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secretKey;
 
+    // Tempo máximo que claims já verificadas ficam em cache, mesmo que o token expire depois
+    @Value("${loja.seguranca.cache-token.ttl-maximo:5m}")
+    private Duration ttlMaximoCache;
 
+    @Value("${loja.seguranca.cache-token.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
 
-    // Extrai as claims do token JWT (informações adicionais do token)
+    // Chave e parser são imutáveis e thread-safe, por isso são criados uma única vez
+    private SecretKey chave;
+    private JwtParser parser;
+
+    // Claims de tokens cuja assinatura já foi verificada, pela impressão digital do token
+    @Getter
+    private Cache<String, Claims> claimsVerificadas;
+
+    @PostConstruct
+    void inicializar() {
+        chave = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(chave) // Define a chave secreta para validar a assinatura do token
+                .build();
+        claimsVerificadas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfter(new ExpiracaoDoToken())
+                .recordStats()
+                .build();
+    }
+
+    // Extrai as claims do token JWT (informações adicionais do token).
+    // A assinatura só é verificada na primeira vez que o token aparece; lança JwtException se for inválido
+    // ou não tiver expiração (exp), e nesse caso nada fica em cache
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8))) // Define a chave secreta para validar a assinatura do token
-                .build()
-                .parseClaimsJws(token) // Analisa o token JWT e obtém as claims
-                .getBody(); // Retorna o corpo das claims
+        return claimsVerificadas.get(TokenFingerprint.de(token), fingerprint -> {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null) {
+                throw new JwtException("Token sem data de expiração");
+            }
+            return claims;
+        });
     }
 
     // Extrai o email do usuário do token JWT
@@ -37,15 +76,40 @@ public class JwtUtil {
 
     // Verifica se o token JWT está expirado
     public boolean isTokenExpired(String token) {
-        // Compara a data de expiração do token com a data atual
-        return extractClaims(token).getExpiration().before(new Date());
+        return isExpirado(extractClaims(token));
+    }
+
+    // Verifica a expiração a partir de claims já extraídas, sem analisar o token de novo
+    public boolean isExpirado(Claims claims) {
+        // Token sem expiração nunca é aceito; senão compara a data de expiração com a data atual
+        return claims.getExpiration() == null || claims.getExpiration().before(new Date());
     }
 
     // Valida o token JWT verificando o nome de usuário e se o token não está expirado
     public boolean validateToken(String token, String username) {
-        // Extrai o nome de usuário do token
-        final String extractedUsername = extrairEmailToken(token);
+        Claims claims = extractClaims(token);
         // Verifica se o nome de usuário do token corresponde ao fornecido e se o token não está expirado
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return username.equals(claims.getSubject()) && !isExpirado(claims);
+    }
+
+    // Mantém cada entrada só até a expiração do próprio token, limitada ao TTL máximo
+    private class ExpiracaoDoToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String fingerprint, Claims claims, long currentTime) {
+            // Só entram no cache tokens com expiração (ver extractClaims)
+            long restante = Duration.ofMillis(claims.getExpiration().getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(restante, ttlMaximoCache.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String fingerprint, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String fingerprint, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
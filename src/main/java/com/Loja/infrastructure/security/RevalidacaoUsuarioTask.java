@@ -0,0 +1,52 @@
+package com.Loja.infrastructure.security;
+
+
+import com.Loja.business.dto.ClientDTO.UsuarioResponseDTO;
+import com.Loja.infrastructure.exceptions.ServicoIndisponivelException;
+import com.Loja.infrastructure.security.Client.UsuarioClientResiliente;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// Consulta o usuario-app fora da thread da requisição para confirmar que o usuário do token continua válido
+@Component
+@RequiredArgsConstructor
+public class RevalidacaoUsuarioTask {
+
+    private static final Logger log = LoggerFactory.getLogger(RevalidacaoUsuarioTask.class);
+
+    private final UsuarioClientResiliente client;
+
+    /**
+     * Verifica se o usuário ainda existe e mantém um dos perfis presentes no token
+     * @param email Email do usuário (subject do token)
+     * @param authorizationHeader Header Authorization repassado ao usuario-app
+     * @param roles Perfis declarados no token, sem o prefixo ROLE_
+     * @return false se o usuário foi removido, perdeu o acesso ou mudou de perfil;
+     *         true se continua válido ou se não foi possível consultar o usuario-app
+     */
+    @Async
+    public CompletableFuture<Boolean> usuarioContinuaValido(String email, String authorizationHeader, Set<String> roles) {
+        try {
+            UsuarioResponseDTO usuario = client.buscaUsuarioPorEmail(email, authorizationHeader);
+            boolean valido = usuario != null && usuario.getRole() != null && roles.contains(usuario.getRole().name());
+            return CompletableFuture.completedFuture(valido);
+        } catch (FeignException e) {
+            if (e.status() == 401 || e.status() == 403 || e.status() == 404) {
+                return CompletableFuture.completedFuture(false);
+            }
+            // Indisponibilidade do usuario-app não revoga ninguém: a loja continua atendendo
+            log.warn("Não foi possível revalidar o usuário {}: {}", email, e.getMessage());
+            return CompletableFuture.completedFuture(true);
+        } catch (ServicoIndisponivelException e) {
+            log.warn("Não foi possível revalidar o usuário {}: {}", email, e.getMessage());
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.Loja.infrastructure.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Gera uma impressão digital (SHA-256) do token para usar como chave de cache sem guardar o token em si
+public final class TokenFingerprint {
+
+    private TokenFingerprint() {
+    }
+
+    public static String de(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 é obrigatório em toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,22 +5,98 @@ package com.Loja.infrastructure.security;
 
 
 import com.Loja.business.dto.ClientDTO.UsuarioResponseDTO;
-import com.Loja.infrastructure.security.Client.UsuarioClient;
+import com.Loja.infrastructure.security.Client.UsuarioClientResiliente;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
 public class UserDetailsServiceImpl {
 
     @Autowired
-    private UsuarioClient client;
+    private UsuarioClientResiliente client;
     private static final Logger log = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
+    @Value("${loja.seguranca.cache-usuario.ttl:60s}")
+    private Duration ttlCache;
+
+    @Value("${loja.seguranca.cache-usuario.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
+
+    // Usuários já carregados do usuario-app, por email e impressão digital do token usado na consulta.
+    // Cache assíncrono: a chamada remota roda fora do lock interno do mapa, sem prender threads virtuais
+    @Getter
+    private AsyncCache<ChaveUsuario, UserDetails> cache;
+
+    @PostConstruct
+    void inicializarCache() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttlCache)
+                .maximumSize(tamanhoMaximoCache)
+                .recordStats()
+                .buildAsync();
+    }
+
     public UserDetails carregaDadosUsuario(String email, String token){
+        // cache.get agrupa as requisições simultâneas da mesma chave em uma única chamada remota:
+        // só a thread que instalou o futuro faz a chamada (na própria thread da requisição), as demais aguardam
+        CompletableFuture<UserDetails> novo = new CompletableFuture<>();
+        CompletableFuture<UserDetails> usuario = cache.get(new ChaveUsuario(email, TokenFingerprint.de(token)),
+                (chave, executor) -> novo);
+        if (usuario == novo) {
+            try {
+                novo.complete(buscarUsuario(email, token));
+            } catch (Throwable e) {
+                // Futuros com falha são removidos do cache. Qualquer falha (inclusive Error) precisa completar o
+                // futuro: senão ele fica no cache sem valor e as requisições seguintes da chave esperam para sempre
+                novo.completeExceptionally(e);
+            }
+        }
+        try {
+            return usuario.join();
+        } catch (CompletionException e) {
+            // Repassa a exceção original da chamada (Feign ou serviço indisponível)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+
+    // Remove do cache todas as entradas do usuário (por exemplo, após troca de senha ou de perfil)
+    public void invalidarUsuario(String email) {
+        cache.synchronous().asMap().keySet().removeIf(chave -> chave.email().equals(email));
+    }
+
+    public void invalidarTodos() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStats estatisticasCache() {
+        return cache.synchronous().stats();
+    }
 
+    public long tamanhoCache() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private UserDetails buscarUsuario(String email, String token) {
         log.info("Tentando carregar usuário para email: {}", email);
         UsuarioResponseDTO usuarioDTO = client.buscaUsuarioPorEmail(email, token);
         return User
@@ -31,5 +107,8 @@ public class UserDetailsServiceImpl {
 
     }
 
+    private record ChaveUsuario(String email, String fingerprintToken) {
+    }
+
 
 }
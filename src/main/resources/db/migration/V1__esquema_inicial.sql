@@ -0,0 +1,46 @@
+-- Esquema da versão publicada antes do Flyway, igual ao que o Hibernate gerava com ddl-auto=update.
+-- Bancos já existentes (criados pelo ddl-auto) são marcados nesta versão pelo baseline do Flyway;
+-- bancos novos partem dele. Em ambos os casos as migrações seguintes levam ao esquema atual.
+
+CREATE TABLE produto (
+    id                 BIGINT       NOT NULL AUTO_INCREMENT,
+    ativo              BIT          NOT NULL,
+    descricao          VARCHAR(255) NOT NULL,
+    nome               VARCHAR(255) NOT NULL,
+    preco_compra       DOUBLE       NOT NULL,
+    preco_venda        DOUBLE       NOT NULL,
+    quantidade_estoque INTEGER      NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE venda (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    data        DATETIME(6) NOT NULL,
+    valor_total DOUBLE      NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE item_venda (
+    id                   BIGINT       NOT NULL AUTO_INCREMENT,
+    preco_unitario       DOUBLE       NOT NULL,
+    produto_nome         VARCHAR(255) NOT NULL,
+    produto_preco_compra DOUBLE       NOT NULL,
+    produto_preco_venda  DOUBLE       NOT NULL,
+    quantidade           INTEGER      NOT NULL,
+    subtotal             DOUBLE       NOT NULL,
+    produto_id           BIGINT       NOT NULL,
+    venda_id             BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_item_venda_venda FOREIGN KEY (venda_id) REFERENCES venda (id),
+    CONSTRAINT fk_item_venda_produto FOREIGN KEY (produto_id) REFERENCES produto (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE movimentacao (
+    id         BIGINT                   NOT NULL AUTO_INCREMENT,
+    data       DATETIME(6)              NOT NULL,
+    quantidade INTEGER                  NOT NULL,
+    tipo       ENUM ('ENTRADA','SAIDA') NOT NULL,
+    produto_id BIGINT                   NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_movimentacao_produto FOREIGN KEY (produto_id) REFERENCES produto (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,60 @@
+-- Leva o esquema da V1 (o da versão publicada, criado pelo ddl-auto=update) ao que as entidades mapeiam hoje.
+-- Roda tanto em bancos novos quanto nos existentes marcados na versão 1, preservando as linhas gravadas.
+
+-- Valores monetários: colunas DOUBLE passam a DECIMAL(19,2), lidas como Dinheiro
+ALTER TABLE produto MODIFY COLUMN preco_compra DECIMAL(19,2) NOT NULL;
+ALTER TABLE produto MODIFY COLUMN preco_venda DECIMAL(19,2) NOT NULL;
+ALTER TABLE venda MODIFY COLUMN valor_total DECIMAL(19,2) NOT NULL;
+ALTER TABLE item_venda MODIFY COLUMN produto_preco_compra DECIMAL(19,2) NOT NULL;
+ALTER TABLE item_venda MODIFY COLUMN produto_preco_venda DECIMAL(19,2) NOT NULL;
+ALTER TABLE item_venda MODIFY COLUMN preco_unitario DECIMAL(19,2) NOT NULL;
+ALTER TABLE item_venda MODIFY COLUMN subtotal DECIMAL(19,2) NOT NULL;
+
+-- Nome normalizado para a pesquisa por prefixo, preenchido para os produtos já cadastrados
+ALTER TABLE produto ADD COLUMN nome_busca VARCHAR(255);
+
+UPDATE produto SET nome_busca = LOWER(TRIM(nome));
+
+CREATE INDEX idx_produto_ativo_nome_busca ON produto (ativo, nome_busca);
+
+-- Baixas de estoque reservadas em memória e ainda não aplicadas ao produto; as existentes já foram aplicadas
+ALTER TABLE movimentacao ADD COLUMN pendente BIT NOT NULL DEFAULT FALSE;
+
+-- Itens e movimentações passam a usar sequências do Hibernate (inserts em lote) no lugar do auto-incremento.
+-- As tabelas de sequência começam além do maior id existente, com folga de um bloco de alocação (50)
+ALTER TABLE item_venda MODIFY COLUMN id BIGINT NOT NULL;
+ALTER TABLE movimentacao MODIFY COLUMN id BIGINT NOT NULL;
+
+CREATE TABLE item_venda_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO item_venda_seq (next_val) SELECT COALESCE(MAX(id), 0) + 100 FROM item_venda;
+
+CREATE TABLE movimentacao_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO movimentacao_seq (next_val) SELECT COALESCE(MAX(id), 0) + 100 FROM movimentacao;
+
+-- Resumo diário das vendas, em centavos. É um dado derivado: calculado de novo a partir das vendas gravadas
+CREATE TABLE IF NOT EXISTS resumo_venda_diario (
+    dia               DATE   NOT NULL,
+    receita_centavos  BIGINT NOT NULL,
+    custo_centavos    BIGINT NOT NULL,
+    quantidade_itens  BIGINT NOT NULL,
+    quantidade_vendas BIGINT NOT NULL,
+    PRIMARY KEY (dia)
+) ENGINE = InnoDB;
+
+DELETE FROM resumo_venda_diario;
+
+INSERT INTO resumo_venda_diario (dia, receita_centavos, custo_centavos, quantidade_itens, quantidade_vendas)
+SELECT CAST(v.data AS DATE),
+       SUM(ROUND(i.subtotal * 100)),
+       SUM(ROUND(i.produto_preco_compra * 100) * i.quantidade),
+       SUM(i.quantidade),
+       COUNT(DISTINCT v.id)
+FROM venda v
+         JOIN item_venda i ON i.venda_id = v.id
+GROUP BY CAST(v.data AS DATE);
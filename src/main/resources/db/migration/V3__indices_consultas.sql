@@ -0,0 +1,17 @@
+-- Índices para as consultas dos repositórios (ver a task verificarIndices no build.gradle)
+
+-- Vendas por período (findByDataBetween, countByDataBetween, meses com vendas, streamPorPeriodo,
+-- recálculo do resumo) e paginação por chave (data, id)
+CREATE INDEX idx_venda_data_id ON venda (data, id);
+
+-- Itens de uma venda (fetch de Venda.itens) já com o produto, sem ler a linha; também atende a FK de venda
+CREATE INDEX idx_item_venda_venda_produto ON item_venda (venda_id, produto_id);
+
+-- Histórico de movimentações de um produto em ordem de data (findByProdutoId) e saldo pendente por produto
+CREATE INDEX idx_movimentacao_produto_data ON movimentacao (produto_id, data);
+
+-- Movimentações por período (findByDataBetween)
+CREATE INDEX idx_movimentacao_data ON movimentacao (data);
+
+-- Baixas reservadas ainda não aplicadas, na ordem de aplicação (buscarPendentes)
+CREATE INDEX idx_movimentacao_pendente_id ON movimentacao (pendente, id);
@@ -0,0 +1,9 @@
+-- Totais de receita dos meses já encerrados, calculados uma vez a partir dos resumos diários
+-- (ver ReceitaMensalFechadaService). Uma correção retroativa remove o mês para que seja recalculado
+CREATE TABLE receita_mensal_fechada (
+    mes              DATE        NOT NULL,
+    receita_centavos BIGINT      NOT NULL,
+    custo_centavos   BIGINT      NOT NULL,
+    fechado_em       DATETIME(6) NOT NULL,
+    PRIMARY KEY (mes)
+) ENGINE = InnoDB;
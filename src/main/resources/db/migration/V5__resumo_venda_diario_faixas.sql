@@ -0,0 +1,7 @@
+-- Divide o resumo diário em faixas: cada venda soma seus totais a uma faixa sorteada do dia, e não mais a uma
+-- única linha que todas as vendas simultâneas travavam até o commit. As linhas existentes ficam na faixa 0
+ALTER TABLE resumo_venda_diario ADD COLUMN faixa INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE resumo_venda_diario DROP PRIMARY KEY;
+
+ALTER TABLE resumo_venda_diario ADD PRIMARY KEY (dia, faixa);
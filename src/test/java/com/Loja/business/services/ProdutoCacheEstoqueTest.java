@@ -0,0 +1,128 @@
+package com.Loja.business.services;
+
+import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.entity.Produto;
+import com.Loja.infrastructure.repository.ProdutoRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Toda alteração de estoque tira o produto do cache de segundo nível: a leitura seguinte vê o estoque gravado,
+// e as leituras entre uma alteração e outra continuam saindo do cache
+@SpringBootTest
+@ActiveProfiles("teste")
+class ProdutoCacheEstoqueTest {
+
+    // Id alto para não colidir com as movimentações geradas pelos outros testes no mesmo banco
+    private static final long ID_MOVIMENTACAO_PENDENTE = 8_000_000L;
+
+    private static final int RODADAS = 10;
+    private static final int LEITURAS_POR_RODADA = 20;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transacao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void alteracaoDeEstoqueApareceNaProximaLeitura() {
+        Long produtoId = criarProduto("Produto em cache", 10);
+        Cache cache = entityManagerFactory.getCache();
+
+        assertThat(lerEstoque(produtoId)).isEqualTo(10);
+        assertThat(cache.contains(Produto.class, produtoId)).isTrue();
+
+        produtoService.removerEstoque(produtoId, 3);
+        assertThat(cache.contains(Produto.class, produtoId)).isFalse();
+        assertThat(lerEstoque(produtoId)).isEqualTo(7);
+
+        produtoService.adicionarEstoque(produtoId, 5);
+        assertThat(lerEstoque(produtoId)).isEqualTo(12);
+
+        // Baixa reservada em memória e aplicada depois pelo job
+        jdbc.update("INSERT INTO movimentacao (id, data, quantidade, tipo, produto_id, pendente) " +
+                "VALUES (?, ?, 2, 'SAIDA', ?, true)", ID_MOVIMENTACAO_PENDENTE, LocalDateTime.now(), produtoId);
+        assertThat(cache.contains(Produto.class, produtoId)).isTrue();
+        while (produtoService.aplicarBaixasPendentes(500) > 0) {
+            // Aplica todas as baixas pendentes
+        }
+        assertThat(lerEstoque(produtoId)).isEqualTo(10);
+    }
+
+    // Sem o flush antes do UPDATE nativo, o estoque alterado na entidade seria gravado no commit, por cima da baixa
+    @Test
+    void alteracaoPendenteDoProdutoEGravadaAntesDaBaixa() {
+        Long produtoId = criarProduto("Produto alterado", 100);
+
+        transacao.executeWithoutResult(status -> {
+            Produto produto = produtoRepository.findById(produtoId).orElseThrow();
+            produto.setQuantidadeEstoque(50);
+            assertThat(produtoRepository.baixarEstoque(produtoId, 1)).isEqualTo(1);
+        });
+
+        assertThat(jdbc.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId))
+                .isEqualTo(49);
+        assertThat(lerEstoque(produtoId)).isEqualTo(49);
+    }
+
+    // Mede as leituras do banco evitadas: com uma baixa a cada rodada, só a primeira leitura depois dela vai ao
+    // banco; as demais leituras da rodada e a leitura da própria baixa são acertos do cache
+    @Test
+    void leiturasEntreAsBaixasSaemDoCache() {
+        Long produtoId = criarProduto("Produto medido", RODADAS);
+        CacheRegionStatistics regiao = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics().getDomainDataRegionStatistics("produto");
+
+        lerEstoque(produtoId);
+        long acertosAntes = regiao.getHitCount();
+        long faltasAntes = regiao.getMissCount();
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            produtoService.removerEstoque(produtoId, 1);
+            for (int leitura = 0; leitura < LEITURAS_POR_RODADA; leitura++) {
+                assertThat(lerEstoque(produtoId)).isEqualTo(RODADAS - rodada - 1);
+            }
+        }
+
+        long leiturasDoBanco = regiao.getMissCount() - faltasAntes;
+        long leiturasEvitadas = regiao.getHitCount() - acertosAntes;
+        assertThat(leiturasDoBanco).isEqualTo(RODADAS);
+        assertThat(leiturasEvitadas).isEqualTo((long) RODADAS * LEITURAS_POR_RODADA);
+    }
+
+    private Integer lerEstoque(Long produtoId) {
+        return transacao.execute(status -> produtoRepository.findById(produtoId).orElseThrow().getQuantidadeEstoque());
+    }
+
+    private Long criarProduto(String nome, int estoque) {
+        produtoService.salvar(ProdutoRequestDTO.builder()
+                .nome(nome)
+                .descricao("teste de cache")
+                .precoCompra(Dinheiro.valueOf("1.00"))
+                .precoVenda(Dinheiro.valueOf("2.00"))
+                .quantidadeEstoque(estoque)
+                .build());
+        return jdbc.queryForObject("SELECT MAX(id) FROM produto WHERE nome = ?", Long.class, nome);
+    }
+}
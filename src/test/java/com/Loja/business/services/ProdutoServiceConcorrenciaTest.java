@@ -0,0 +1,103 @@
+package com.Loja.business.services;
+
+import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.exceptions.ConcurrencyException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Baixas simultâneas do mesmo produto nunca vendem mais do que o estoque
+@SpringBootTest
+@ActiveProfiles("teste")
+class ProdutoServiceConcorrenciaTest {
+
+    private static final int ESTOQUE = 200;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void baixasConcorrentesConsomemExatamenteOEstoque() throws Exception {
+        produtoService.salvar(ProdutoRequestDTO.builder()
+                .nome("Produto disputado")
+                .descricao("teste de concorrência")
+                .precoCompra(Dinheiro.valueOf("1.00"))
+                .precoVenda(Dinheiro.valueOf("2.00"))
+                .quantidadeEstoque(ESTOQUE)
+                .build());
+        Long produtoId = jdbc.queryForObject("SELECT MAX(id) FROM produto WHERE nome = 'Produto disputado'", Long.class);
+
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger tentativas = new AtomicInteger();
+        AtomicInteger menorEstoqueVisto = new AtomicInteger(ESTOQUE);
+        AtomicBoolean executando = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        // Observa o estoque gravado durante toda a disputa
+        Future<?> observador = executor.submit(() -> {
+            while (executando.get()) {
+                menorEstoqueVisto.accumulateAndGet(estoqueGravado(produtoId), Math::min);
+            }
+        });
+
+        List<Future<?>> compradores = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            compradores.add(executor.submit(() -> {
+                largada.await();
+                // Limite de tentativas para que uma venda acima do estoque falhe nas asserções, e não por tempo
+                while (tentativas.incrementAndGet() <= ESTOQUE * 20) {
+                    try {
+                        produtoService.removerEstoque(produtoId, 1);
+                        sucessos.incrementAndGet();
+                    } catch (ConcurrencyException e) {
+                        // Outra baixa venceu a disputa pela linha; tenta de novo
+                    } catch (EstoqueInsuficienteException e) {
+                        return null;
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> comprador : compradores) {
+            comprador.get(2, TimeUnit.MINUTES);
+        }
+        executando.set(false);
+        observador.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        menorEstoqueVisto.accumulateAndGet(estoqueGravado(produtoId), Math::min);
+        assertThat(sucessos.get()).isEqualTo(ESTOQUE);
+        assertThat(estoqueGravado(produtoId)).isZero();
+        assertThat(menorEstoqueVisto.get()).isGreaterThanOrEqualTo(0);
+        assertThat(jdbc.queryForObject(
+                "SELECT COALESCE(SUM(quantidade), 0) FROM movimentacao WHERE produto_id = ? AND tipo = 'SAIDA'",
+                Integer.class, produtoId)).isEqualTo(ESTOQUE);
+    }
+
+    private int estoqueGravado(Long produtoId) {
+        return jdbc.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+}
@@ -0,0 +1,167 @@
+package com.Loja.business.services;
+
+import com.Loja.business.services.ReceitaMensalFechadaService.TotaisMes;
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Venda;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.Loja.infrastructure.repository.ReceitaMensalFechadaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Meses fechados são calculados uma única vez e reaproveitados, da memória ou da tabela; vendas retroativas e
+// correções os invalidam, e o mês corrente, ainda aberto, nunca é guardado
+@SpringBootTest
+@ActiveProfiles("teste")
+class ReceitaMensalFechadaServiceTest {
+
+    // Ids altos e anos antigos para não colidir com os dados dos outros testes no mesmo banco
+    private static final long PRODUTO_ID = 7_000_000L;
+    private static final LocalDate DIA_FECHADO = LocalDate.of(2018, 3, 10);
+    private static final LocalDate DIA_RETROATIVO = LocalDate.of(2018, 3, 20);
+
+    @Autowired
+    private ReceitaMensalFechadaService receitaFechadaService;
+
+    @Autowired
+    private ReceitaLojaService receitaLojaService;
+
+    @Autowired
+    private ResumoVendaDiarioService resumoVendaDiarioService;
+
+    @Autowired
+    private ReceitaMensalFechadaRepository repository;
+
+    @Autowired
+    private MetricasLoja metricas;
+
+    @Autowired
+    private VersaoConteudoService versaoConteudoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionTemplate transacao;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void mesFechadoECalculadoUmaVezEReaproveitado() {
+        YearMonth inicio = YearMonth.of(2017, 1);
+        YearMonth fim = YearMonth.of(2017, 3);
+        List<List<YearMonth>> calculos = new ArrayList<>();
+        Function<List<YearMonth>, Map<YearMonth, TotaisMes>> calcular = meses -> {
+            calculos.add(meses);
+            Map<YearMonth, TotaisMes> totais = new HashMap<>();
+            meses.forEach(mes -> totais.put(mes, new TotaisMes(mes.getMonthValue() * 1_000L, mes.getMonthValue() * 400L)));
+            return totais;
+        };
+
+        Map<YearMonth, TotaisMes> primeira = receitaFechadaService.obter(inicio, fim, calcular);
+        assertThat(calculos).containsExactly(List.of(inicio, YearMonth.of(2017, 2), fim));
+        assertThat(primeira.get(fim)).isEqualTo(new TotaisMes(3_000, 1_200));
+
+        // Da memória: a função não é chamada de novo
+        assertThat(receitaFechadaService.obter(inicio, fim, calcular)).isEqualTo(primeira);
+        assertThat(calculos).hasSize(1);
+
+        // Outra instância (ou depois de um reinício), sem nada em memória: os totais vêm da tabela
+        ReceitaMensalFechadaService reiniciado = new ReceitaMensalFechadaService(repository, metricas,
+                versaoConteudoService, transactionManager, Duration.ofDays(1), Duration.ofHours(1));
+        assertThat(reiniciado.obter(inicio, fim, calcular)).isEqualTo(primeira);
+        assertThat(calculos).hasSize(1);
+    }
+
+    @Test
+    void vendaRetroativaECancelamentoInvalidamOMesFechado() {
+        jdbc.update("INSERT INTO produto (id, ativo, descricao, nome, nome_busca, preco_compra, preco_venda, quantidade_estoque) " +
+                "VALUES (?, true, 'receita fechada', 'Produto receita fechada', 'produto receita fechada', 4.00, 10.00, 0)",
+                PRODUTO_ID);
+        gravarVenda(PRODUTO_ID, DIA_FECHADO.atTime(10, 0), "10.00", "4.00");
+        resumoVendaDiarioService.reconstruir(DIA_FECHADO.withDayOfMonth(1), DIA_FECHADO.withDayOfMonth(31));
+
+        assertThat(receitaDoMes(DIA_FECHADO)).isEqualTo(Dinheiro.valueOf("10.00"));
+        assertThat(mesGravado(DIA_FECHADO)).isTrue();
+
+        // Venda lançada com data de março de 2018, já fechado: registrada como na transação da venda
+        Long retroativa = gravarVenda(PRODUTO_ID + 1, DIA_RETROATIVO.atTime(15, 0), "5.00", "2.00");
+        transacao.executeWithoutResult(status -> resumoVendaDiarioService.registrarVenda(
+                venda(DIA_RETROATIVO.atTime(15, 0), "5.00", "2.00")));
+        assertThat(mesGravado(DIA_FECHADO)).isFalse();
+        assertThat(receitaDoMes(DIA_FECHADO)).isEqualTo(Dinheiro.valueOf("15.00"));
+
+        // Venda cancelada: removida do histórico e o resumo do dia reconstruído
+        jdbc.update("DELETE FROM item_venda WHERE venda_id = ?", retroativa);
+        jdbc.update("DELETE FROM venda WHERE id = ?", retroativa);
+        resumoVendaDiarioService.reconstruir(DIA_RETROATIVO, DIA_RETROATIVO);
+        assertThat(receitaDoMes(DIA_FECHADO)).isEqualTo(Dinheiro.valueOf("10.00"));
+    }
+
+    @Test
+    void mesCorrenteNuncaEGuardado() {
+        YearMonth atual = YearMonth.now();
+        assertThatThrownBy(() -> receitaFechadaService.obter(atual, atual, meses -> Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        LocalDateTime agora = LocalDateTime.now();
+        Dinheiro antes = receitaDoMes(agora.toLocalDate());
+        transacao.executeWithoutResult(status -> resumoVendaDiarioService.registrarVenda(venda(agora, "7.00", "3.00")));
+
+        // A venda aparece na consulta seguinte, e o mês continua fora da tabela de meses fechados
+        assertThat(receitaDoMes(agora.toLocalDate())).isEqualTo(antes.somar(Dinheiro.valueOf("7.00")));
+        assertThat(mesGravado(agora.toLocalDate())).isFalse();
+    }
+
+    private Dinheiro receitaDoMes(LocalDate dia) {
+        return receitaLojaService.consultarReceitaDoMes(dia.getYear(), dia.getMonthValue()).getReceitaTotal();
+    }
+
+    private boolean mesGravado(LocalDate dia) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM receita_mensal_fechada WHERE mes = ?", Integer.class,
+                dia.withDayOfMonth(1)) > 0;
+    }
+
+    // Venda de um item, gravada direto nas tabelas com o id informado
+    private Long gravarVenda(Long id, LocalDateTime data, String valor, String precoCompra) {
+        jdbc.update("INSERT INTO venda (id, data, valor_total) VALUES (?, ?, ?)", id, data, Dinheiro.valueOf(valor).toBigDecimal());
+        jdbc.update("INSERT INTO item_venda (id, venda_id, produto_id, produto_nome, produto_preco_compra, " +
+                        "produto_preco_venda, quantidade, preco_unitario, subtotal) VALUES (?, ?, ?, 'Produto receita fechada', ?, ?, 1, ?, ?)",
+                id, id, PRODUTO_ID, Dinheiro.valueOf(precoCompra).toBigDecimal(), Dinheiro.valueOf(valor).toBigDecimal(),
+                Dinheiro.valueOf(valor).toBigDecimal(), Dinheiro.valueOf(valor).toBigDecimal());
+        return id;
+    }
+
+    private static Venda venda(LocalDateTime data, String valor, String precoCompra) {
+        Venda venda = Venda.builder().data(data).build();
+        venda.getItens().add(ItemVenda.builder()
+                .venda(venda)
+                .produtoPrecoCompra(Dinheiro.valueOf(precoCompra))
+                .produtoPrecoVenda(Dinheiro.valueOf(valor))
+                .precoUnitario(Dinheiro.valueOf(valor))
+                .quantidade(1)
+                .subtotal(Dinheiro.valueOf(valor))
+                .build());
+        venda.setValorTotal(Dinheiro.valueOf(valor));
+        return venda;
+    }
+}
@@ -0,0 +1,160 @@
+package com.Loja.business.services;
+
+import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.exceptions.ConcurrencyException;
+import com.Loja.infrastructure.exceptions.EstoqueInsuficienteException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Com a reserva em memória, edições do produto (que recriam o contador) durante as vendas nunca liberam o mesmo
+// estoque duas vezes. O job de baixas fica parado durante a disputa e é chamado ao final pelo próprio teste
+@SpringBootTest(properties = {
+        "loja.estoque.reserva-memoria.habilitada=true",
+        "loja.estoque.reserva-memoria.intervalo-flush-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:reserva;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("teste")
+class ReservaEstoqueConcorrenciaTest {
+
+    private static final int ESTOQUE = 400;
+    // Abaixo do pool de conexões (10): cada venda segura uma conexão e a criação do contador usa outra
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transacao;
+
+    @Test
+    void edicoesDuranteAsVendasNaoLiberamEstoqueJaReservado() throws Exception {
+        Long produtoId = criarProduto("Produto editado", ESTOQUE);
+
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger tentativas = new AtomicInteger();
+        AtomicInteger edicoes = new AtomicInteger();
+        AtomicBoolean vendendo = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        // Troca o preço sem mudar o estoque: cada edição descarta o contador, recriado a partir do banco
+        Future<?> editor = executor.submit(() -> {
+            largada.await();
+            while (vendendo.get()) {
+                produtoService.salvar(requisicao(produtoId, "Produto editado", ESTOQUE, 200 + edicoes.incrementAndGet() % 2));
+            }
+            return null;
+        });
+
+        List<Future<?>> compradores = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            compradores.add(executor.submit(() -> {
+                largada.await();
+                // Limite de tentativas para que uma venda acima do estoque falhe nas asserções, e não por tempo
+                while (tentativas.incrementAndGet() <= ESTOQUE * 50) {
+                    try {
+                        // A baixa dentro de uma transação maior, como na venda: a reserva fica em aberto até o commit
+                        transacao.executeWithoutResult(status -> {
+                            produtoService.removerEstoque(produtoId, 1);
+                            pausar();
+                        });
+                        sucessos.incrementAndGet();
+                    } catch (ConcurrencyException e) {
+                        // O contador foi descartado durante a venda; tenta de novo
+                    } catch (EstoqueInsuficienteException e) {
+                        return null;
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> comprador : compradores) {
+            comprador.get(2, TimeUnit.MINUTES);
+        }
+        vendendo.set(false);
+        editor.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(edicoes.get()).isGreaterThan(1);
+        assertThat(sucessos.get()).isEqualTo(ESTOQUE);
+        assertThat(saidasPendentes(produtoId)).isEqualTo(ESTOQUE);
+
+        while (produtoService.aplicarBaixasPendentes(500) > 0) {
+            // Aplica todas as baixas reservadas
+        }
+        assertThat(estoqueGravado(produtoId)).isZero();
+        assertThat(saidasPendentes(produtoId)).isZero();
+    }
+
+    @Test
+    void baixaPendenteAcimaDoEstoqueNaoDeixaEstoqueNegativo() {
+        Long produtoId = criarProduto("Produto reduzido", 20);
+        for (int i = 0; i < 15; i++) {
+            produtoService.removerEstoque(produtoId, 1);
+        }
+
+        // Estoque sobrescrito para menos do que já foi reservado e ainda não aplicado
+        produtoService.salvar(requisicao(produtoId, "Produto reduzido", 10, 200));
+        while (produtoService.aplicarBaixasPendentes(500) > 0) {
+            // Aplica todas as baixas reservadas
+        }
+
+        assertThat(estoqueGravado(produtoId)).isZero();
+        assertThat(saidasPendentes(produtoId)).isZero();
+    }
+
+    private Long criarProduto(String nome, int estoque) {
+        produtoService.salvar(requisicao(null, nome, estoque, 200));
+        return jdbc.queryForObject("SELECT MAX(id) FROM produto WHERE nome = ?", Long.class, nome);
+    }
+
+    private static ProdutoRequestDTO requisicao(Long id, String nome, int estoque, long precoVendaCentavos) {
+        return ProdutoRequestDTO.builder()
+                .id(id)
+                .nome(nome)
+                .descricao("teste de reserva")
+                .precoCompra(Dinheiro.valueOf("1.00"))
+                .precoVenda(Dinheiro.deCentavos(precoVendaCentavos))
+                .quantidadeEstoque(estoque)
+                .build();
+    }
+
+    private static void pausar() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int estoqueGravado(Long produtoId) {
+        return jdbc.queryForObject("SELECT quantidade_estoque FROM produto WHERE id = ?", Integer.class, produtoId);
+    }
+
+    private int saidasPendentes(Long produtoId) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(quantidade), 0) FROM movimentacao " +
+                "WHERE produto_id = ? AND tipo = 'SAIDA' AND pendente = true", Integer.class, produtoId);
+    }
+}
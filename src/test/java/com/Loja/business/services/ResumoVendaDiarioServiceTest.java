@@ -0,0 +1,136 @@
+package com.Loja.business.services;
+
+import com.Loja.infrastructure.entity.Dinheiro;
+import com.Loja.infrastructure.entity.ItemVenda;
+import com.Loja.infrastructure.entity.Venda;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import com.Loja.infrastructure.repository.ResumoVendaDiarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Os totais acumulados no resumo diário, somados entre as faixas, conferem com a soma em BigDecimal das vendas
+class ResumoVendaDiarioServiceTest {
+
+    private static final int VENDAS = 2_000;
+    private static final int FAIXAS = 16;
+    private static final LocalDate DIA = LocalDate.of(2024, 3, 15);
+
+    private final Random aleatorio = new Random(17);
+    private final List<Object[]> acumulados = new ArrayList<>();
+
+    // Guarda os argumentos de cada acumularVenda; nenhum outro método do repositório é usado pelo registro
+    private final ResumoVendaDiarioRepository repositorio = (ResumoVendaDiarioRepository) Proxy.newProxyInstance(
+            ResumoVendaDiarioRepository.class.getClassLoader(),
+            new Class<?>[]{ResumoVendaDiarioRepository.class},
+            (proxy, metodo, argumentos) -> {
+                if (!metodo.getName().equals("acumularVenda")) {
+                    throw new UnsupportedOperationException(metodo.getName());
+                }
+                acumulados.add(argumentos);
+                return null;
+            });
+
+    // Carência de cem anos: o mês das vendas ainda está aberto, então nenhuma receita fechada é invalidada
+    private final VersaoConteudoService versaoConteudoService = new VersaoConteudoService(Duration.ofSeconds(30));
+    private final ResumoVendaDiarioService service = new ResumoVendaDiarioService(repositorio,
+            new ReceitaMensalFechadaService(null, new MetricasLoja(new SimpleMeterRegistry()), versaoConteudoService,
+                    null, Duration.ofDays(36_500), Duration.ofHours(1)),
+            versaoConteudoService, FAIXAS);
+
+    @Test
+    void cadaVendaAcumulaReceitaCustoEItensComoBigDecimal() {
+        for (int i = 0; i < VENDAS; i++) {
+            Venda venda = vendaAleatoria();
+            service.registrarVenda(venda);
+
+            Object[] argumentos = acumulados.get(acumulados.size() - 1);
+            assertThat(argumentos[0]).isEqualTo(DIA);
+            assertThat((Integer) argumentos[1]).isBetween(0, FAIXAS - 1);
+            assertThat(argumentos[2]).isEqualTo(centavos(receita(venda)));
+            assertThat(argumentos[3]).isEqualTo(centavos(custo(venda)));
+            assertThat(argumentos[4]).isEqualTo(venda.getItens().stream().mapToLong(ItemVenda::getQuantidade).sum());
+        }
+    }
+
+    @Test
+    void somaDasFaixasConfereComOTotalDoDia() {
+        BigDecimal receitaEsperada = BigDecimal.ZERO;
+        BigDecimal custoEsperado = BigDecimal.ZERO;
+        for (int i = 0; i < VENDAS; i++) {
+            Venda venda = vendaAleatoria();
+            service.registrarVenda(venda);
+            receitaEsperada = receitaEsperada.add(receita(venda));
+            custoEsperado = custoEsperado.add(custo(venda));
+        }
+
+        long receita = 0;
+        long custo = 0;
+        Set<Integer> faixas = new HashSet<>();
+        for (Object[] argumentos : acumulados) {
+            faixas.add((Integer) argumentos[1]);
+            receita += (Long) argumentos[2];
+            custo += (Long) argumentos[3];
+        }
+
+        assertThat(acumulados).hasSize(VENDAS);
+        assertThat(faixas).hasSize(FAIXAS);
+        assertThat(BigDecimal.valueOf(receita, 2)).isEqualTo(receitaEsperada);
+        assertThat(BigDecimal.valueOf(custo, 2)).isEqualTo(custoEsperado);
+    }
+
+    // Itens com preços e quantidades sorteados; o total da venda é a soma dos subtotais, como em VendaService
+    private Venda vendaAleatoria() {
+        Venda venda = Venda.builder().data(DIA.atTime(aleatorio.nextInt(24), aleatorio.nextInt(60))).build();
+        Dinheiro total = Dinheiro.ZERO;
+        int quantidadeItens = 1 + aleatorio.nextInt(5);
+        for (int i = 0; i < quantidadeItens; i++) {
+            Dinheiro precoCompra = Dinheiro.deCentavos(1 + aleatorio.nextInt(100_000));
+            Dinheiro precoVenda = Dinheiro.deCentavos(1 + aleatorio.nextInt(200_000));
+            int quantidade = 1 + aleatorio.nextInt(50);
+            ItemVenda item = ItemVenda.builder()
+                    .venda(venda)
+                    .produtoPrecoCompra(precoCompra)
+                    .produtoPrecoVenda(precoVenda)
+                    .precoUnitario(precoVenda)
+                    .quantidade(quantidade)
+                    .subtotal(precoVenda.multiplicar(quantidade))
+                    .build();
+            venda.getItens().add(item);
+            total = total.somar(item.getSubtotal());
+        }
+        venda.setValorTotal(total);
+        return venda;
+    }
+
+    private static BigDecimal receita(Venda venda) {
+        BigDecimal receita = BigDecimal.ZERO;
+        for (ItemVenda item : venda.getItens()) {
+            receita = receita.add(item.getPrecoUnitario().toBigDecimal().multiply(BigDecimal.valueOf(item.getQuantidade())));
+        }
+        return receita;
+    }
+
+    private static BigDecimal custo(Venda venda) {
+        BigDecimal custo = BigDecimal.ZERO;
+        for (ItemVenda item : venda.getItens()) {
+            custo = custo.add(item.getProdutoPrecoCompra().toBigDecimal().multiply(BigDecimal.valueOf(item.getQuantidade())));
+        }
+        return custo;
+    }
+
+    private static Long centavos(BigDecimal valor) {
+        return valor.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,150 @@
+package com.Loja.business.services;
+
+import com.Loja.business.dto.out.VendaPaginaResponseDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A quantidade de comandos SQL das listagens de vendas não cresce com a quantidade de vendas do período
+@SpringBootTest
+@ActiveProfiles("teste")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VendaServiceConsultasSqlTest {
+
+    // Ids altos para não colidir com os gerados pelos outros testes no mesmo banco
+    private static final long PRIMEIRO_ID = 9_000_000L;
+    private static final int ITENS_POR_VENDA = 3;
+
+    private static final LocalDate DIA_POUCAS = LocalDate.of(2021, 1, 5);
+    private static final LocalDate INICIO_MUITAS = LocalDate.of(2021, 2, 1);
+    private static final LocalDate FIM_MUITAS = LocalDate.of(2021, 2, 28);
+
+    @Autowired
+    private VendaService vendaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+
+    @BeforeAll
+    void gravarVendas() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        jdbc.update("INSERT INTO produto (id, ativo, descricao, nome, nome_busca, preco_compra, preco_venda, quantidade_estoque) " +
+                "VALUES (?, true, 'listagem', 'Produto listagem', 'produto listagem', 1.00, 2.50, 0)", PRIMEIRO_ID);
+
+        List<LocalDateTime> datas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            datas.add(DIA_POUCAS.atTime(8, i));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            datas.add(INICIO_MUITAS.plusDays(i % 28).atTime(9, 0).plusSeconds(i));
+        }
+
+        List<Object[]> vendas = new ArrayList<>();
+        List<Object[]> itens = new ArrayList<>();
+        for (int i = 0; i < datas.size(); i++) {
+            long vendaId = PRIMEIRO_ID + i;
+            vendas.add(new Object[]{vendaId, datas.get(i)});
+            for (int j = 0; j < ITENS_POR_VENDA; j++) {
+                itens.add(new Object[]{PRIMEIRO_ID + (long) i * ITENS_POR_VENDA + j, vendaId, PRIMEIRO_ID});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO venda (id, data, valor_total) VALUES (?, ?, 7.50)", vendas);
+        jdbc.batchUpdate("INSERT INTO item_venda (id, venda_id, produto_id, produto_nome, produto_preco_compra, " +
+                "produto_preco_venda, quantidade, preco_unitario, subtotal) " +
+                "VALUES (?, ?, ?, 'Produto listagem', 1.00, 2.50, 1, 2.50, 2.50)", itens);
+    }
+
+    @Test
+    void listagemCompletaUsaAsMesmasConsultasPara10Ou1000Vendas() {
+        long poucas = contarComandos(() -> assertThat(vendaService.listarVendasPorPeriodo(DIA_POUCAS, DIA_POUCAS))
+                .hasSize(10)
+                .allSatisfy(venda -> assertThat(venda.getItens()).hasSize(ITENS_POR_VENDA)));
+        long muitas = contarComandos(() -> assertThat(vendaService.listarVendasPorPeriodo(INICIO_MUITAS, FIM_MUITAS))
+                .hasSize(1_000)
+                .allSatisfy(venda -> assertThat(venda.getItens()).hasSize(ITENS_POR_VENDA)));
+
+        assertThat(muitas).isEqualTo(poucas);
+    }
+
+    @Test
+    void paginaUsaAsMesmasConsultasPara10Ou1000Vendas() {
+        long poucas = contarComandos(() -> assertThat(vendaService.listarVendasPorPeriodoPaginado(
+                DIA_POUCAS, DIA_POUCAS, null, null, 100).getVendas()).hasSize(10));
+        long muitas = contarComandos(() -> assertThat(vendaService.listarVendasPorPeriodoPaginado(
+                INICIO_MUITAS, FIM_MUITAS, null, null, 100).getVendas()).hasSize(100));
+
+        assertThat(muitas).isEqualTo(poucas);
+    }
+
+    // O cursor só vem quando há outra venda depois da página, inclusive se a última página estiver cheia
+    @Test
+    void paginaCheiaNoFimDoPeriodoNaoDevolveCursor() {
+        VendaPaginaResponseDTO unica = vendaService.listarVendasPorPeriodoPaginado(DIA_POUCAS, DIA_POUCAS, null, null, 10);
+        assertThat(unica.getVendas()).hasSize(10);
+        assertThat(unica.getProximaData()).isNull();
+        assertThat(unica.getProximoId()).isNull();
+
+        List<LocalDateTime> datas = new ArrayList<>();
+        VendaPaginaResponseDTO pagina = vendaService.listarVendasPorPeriodoPaginado(DIA_POUCAS, DIA_POUCAS, null, null, 5);
+        pagina.getVendas().forEach(venda -> datas.add(venda.getData()));
+        assertThat(pagina.getProximoId()).isEqualTo(PRIMEIRO_ID + 4);
+
+        pagina = vendaService.listarVendasPorPeriodoPaginado(DIA_POUCAS, DIA_POUCAS,
+                pagina.getProximaData(), pagina.getProximoId(), 5);
+        pagina.getVendas().forEach(venda -> datas.add(venda.getData()));
+        assertThat(pagina.getProximaData()).isNull();
+        assertThat(pagina.getProximoId()).isNull();
+        assertThat(datas).hasSize(10).doesNotHaveDuplicates().isSorted();
+    }
+
+    // A exportação lê blocos de 500 vendas com duas consultas cada (página e itens): os comandos crescem
+    // com a quantidade de blocos, não com a de vendas
+    @Test
+    void exportacaoEmBlocosUsaDuasConsultasPorBloco() {
+        long poucas = contarComandos(() -> assertThat(exportar(DIA_POUCAS, DIA_POUCAS)).isEqualTo(10));
+        long muitas = contarComandos(() -> assertThat(exportar(INICIO_MUITAS, FIM_MUITAS)).isEqualTo(1_000));
+
+        assertThat(poucas).isEqualTo(2);
+        // Dois blocos cheios e a página vazia que encerra a leitura
+        assertThat(muitas).isEqualTo(5);
+    }
+
+    private long exportar(LocalDate inicio, LocalDate fim) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try {
+            vendaService.exportarVendasPorPeriodo(inicio, fim, saida);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return saida.toString(StandardCharsets.UTF_8).lines().count();
+    }
+
+    private long contarComandos(Runnable listagem) {
+        long antes = estatisticas.getPrepareStatementCount();
+        listagem.run();
+        return estatisticas.getPrepareStatementCount() - antes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.Loja.controller;
+
+import com.Loja.business.dto.in.ProdutoRequestDTO;
+import com.Loja.business.services.ProdutoService;
+import com.Loja.infrastructure.entity.Dinheiro;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Requisições condicionais do catálogo: 304 para quem tem a versão atual e 200 com novo ETag logo depois de uma
+// alteração, mesmo no mesmo segundo da resposta anterior. Sem os filtros de segurança, que exigiriam um token;
+// a validade longa impede que a troca de janela mude o ETag no meio do teste
+@SpringBootTest(properties = "loja.http.condicional.validade=3650d")
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("teste")
+class ProdutoControllerCondicionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void alteracaoLogoAposUm304DevolveNovaVersao() throws Exception {
+        Long produtoId = criarProduto("Produto condicional");
+        String recurso = "/admin/loja/produtos/" + produtoId;
+
+        MvcResult primeira = mockMvc.perform(get(recurso))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = primeira.getResponse().getHeader(HttpHeaders.ETAG);
+        ZonedDateTime respondidaEm = ZonedDateTime.now();
+
+        mockMvc.perform(get(recurso).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post(recurso + "/adicionar-estoque").param("quantidade", "5"))
+                .andExpect(status().isOk());
+
+        MvcResult depois = mockMvc.perform(get(recurso).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(depois.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(depois.getResponse().getContentAsString()).contains("\"quantidadeEstoque\":15");
+
+        // Um cliente que só envia a data da resposta anterior também recebe o conteúdo novo
+        mockMvc.perform(get(recurso).header(HttpHeaders.IF_MODIFIED_SINCE,
+                        respondidaEm.format(DateTimeFormatter.RFC_1123_DATE_TIME)))
+                .andExpect(status().isOk());
+    }
+
+    private Long criarProduto(String nome) {
+        produtoService.salvar(ProdutoRequestDTO.builder()
+                .nome(nome)
+                .descricao("teste de requisição condicional")
+                .precoCompra(Dinheiro.valueOf("1.00"))
+                .precoVenda(Dinheiro.valueOf("2.00"))
+                .quantidadeEstoque(10)
+                .build());
+        return jdbc.queryForObject("SELECT MAX(id) FROM produto WHERE nome = ?", Long.class, nome);
+    }
+}
@@ -0,0 +1,129 @@
+package com.Loja.infrastructure.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Propriedades de Dinheiro conferidas contra BigDecimal em casos sorteados (semente fixa, para serem reproduzíveis)
+class DinheiroTest {
+
+    private static final int CASOS = 2_000;
+    private static final BigInteger MENOR_LONG = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger MAIOR_LONG = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final Random aleatorio = new Random(17);
+
+    @Test
+    void valueOfArredondaParaCentavosComoBigDecimal() {
+        for (int i = 0; i < CASOS; i++) {
+            BigDecimal valor = BigDecimal.valueOf(aleatorio.nextLong() % 1_000_000_000_000L, aleatorio.nextInt(5));
+            BigDecimal esperado = valor.setScale(2, RoundingMode.HALF_EVEN);
+
+            assertThat(Dinheiro.valueOf(valor.toPlainString()).toBigDecimal()).isEqualTo(esperado);
+            assertThat(Dinheiro.de(valor).toBigDecimal()).isEqualTo(esperado);
+        }
+    }
+
+    @Test
+    void toBigDecimalEValueOfSaoInversos() {
+        for (int i = 0; i < CASOS; i++) {
+            Dinheiro dinheiro = Dinheiro.deCentavos(aleatorio.nextLong());
+
+            assertThat(dinheiro.toBigDecimal().scale()).isEqualTo(2);
+            assertThat(Dinheiro.de(dinheiro.toBigDecimal())).isEqualTo(dinheiro);
+            assertThat(Dinheiro.valueOf(dinheiro.toString())).isEqualTo(dinheiro);
+        }
+    }
+
+    @Test
+    void somarESubtrairConferemComBigDecimal() {
+        for (int i = 0; i < CASOS; i++) {
+            Dinheiro a = Dinheiro.deCentavos(aleatorio.nextLong() % 1_000_000_000_000_000L);
+            Dinheiro b = Dinheiro.deCentavos(aleatorio.nextLong() % 1_000_000_000_000_000L);
+
+            assertThat(a.somar(b).toBigDecimal()).isEqualTo(a.toBigDecimal().add(b.toBigDecimal()));
+            assertThat(a.subtrair(b).toBigDecimal()).isEqualTo(a.toBigDecimal().subtract(b.toBigDecimal()));
+        }
+    }
+
+    @Test
+    void multiplicarConfereComBigDecimal() {
+        for (int i = 0; i < CASOS; i++) {
+            Dinheiro preco = Dinheiro.deCentavos(aleatorio.nextLong() % 1_000_000_000L);
+            long quantidade = aleatorio.nextInt(100_000);
+
+            assertThat(preco.multiplicar(quantidade).toBigDecimal())
+                    .isEqualTo(preco.toBigDecimal().multiply(BigDecimal.valueOf(quantidade)));
+        }
+    }
+
+    @Test
+    void somaDeMuitosValoresConfereComBigDecimal() {
+        Dinheiro total = Dinheiro.ZERO;
+        BigDecimal esperado = BigDecimal.ZERO.setScale(2);
+        for (int i = 0; i < CASOS; i++) {
+            BigDecimal valor = BigDecimal.valueOf(aleatorio.nextInt(1_000_000), 2);
+            total = total.somar(Dinheiro.de(valor));
+            esperado = esperado.add(valor);
+        }
+        assertThat(total.toBigDecimal()).isEqualTo(esperado);
+    }
+
+    // Perto dos limites do long o resultado exato é devolvido quando cabe; senão a operação falha, nunca estoura em silêncio
+    @Test
+    void overflowLancaExcecaoEmVezDeDarVolta() {
+        for (int i = 0; i < CASOS; i++) {
+            long a = aleatorio.nextLong();
+            long b = aleatorio.nextLong();
+            long quantidade = aleatorio.nextInt(1_000);
+
+            conferir(BigInteger.valueOf(a).add(BigInteger.valueOf(b)),
+                    () -> Dinheiro.deCentavos(a).somar(Dinheiro.deCentavos(b)));
+            conferir(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b)),
+                    () -> Dinheiro.deCentavos(a).subtrair(Dinheiro.deCentavos(b)));
+            conferir(BigInteger.valueOf(a).multiply(BigInteger.valueOf(quantidade)),
+                    () -> Dinheiro.deCentavos(a).multiplicar(quantidade));
+        }
+
+        assertThatThrownBy(() -> Dinheiro.deCentavos(Long.MAX_VALUE).somar(Dinheiro.deCentavos(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Dinheiro.deCentavos(Long.MIN_VALUE).subtrair(Dinheiro.deCentavos(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Dinheiro.valueOf("100000000000000000000.00"))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void conversorGravaComDuasCasasELeDeVolta() {
+        DinheiroConverter conversor = new DinheiroConverter();
+        for (int i = 0; i < CASOS; i++) {
+            Dinheiro dinheiro = Dinheiro.deCentavos(aleatorio.nextLong() % 100_000_000_000_000_000L);
+            BigDecimal coluna = conversor.convertToDatabaseColumn(dinheiro);
+
+            assertThat(coluna.scale()).isEqualTo(2);
+            assertThat(conversor.convertToEntityAttribute(coluna)).isEqualTo(dinheiro);
+
+            // Valor lido de uma coluna DECIMAL(19,2)
+            BigDecimal lido = BigDecimal.valueOf(aleatorio.nextLong() % 100_000_000_000_000_000L, 2);
+            assertThat(conversor.convertToDatabaseColumn(conversor.convertToEntityAttribute(lido))).isEqualTo(lido);
+        }
+
+        assertThat(conversor.convertToDatabaseColumn(null)).isNull();
+        assertThat(conversor.convertToEntityAttribute(null)).isNull();
+    }
+
+    private static void conferir(BigInteger esperado, Supplier<Dinheiro> operacao) {
+        if (esperado.compareTo(MENOR_LONG) < 0 || esperado.compareTo(MAIOR_LONG) > 0) {
+            assertThatThrownBy(operacao::get).isInstanceOf(ArithmeticException.class);
+        } else {
+            assertThat(operacao.get().centavos()).isEqualTo(esperado.longValueExact());
+        }
+    }
+}
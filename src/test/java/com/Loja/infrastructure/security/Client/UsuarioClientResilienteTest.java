@@ -0,0 +1,216 @@
+package com.Loja.infrastructure.security.Client;
+
+import com.Loja.business.dto.ClientDTO.Role;
+import com.Loja.business.dto.ClientDTO.UsuarioResponseDTO;
+import com.Loja.infrastructure.exceptions.ServicoIndisponivelException;
+import com.Loja.infrastructure.metricas.MetricasLoja;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Bulkhead, circuit breaker e fallback para o último usuário conhecido, com o usuario-app substituído por um
+// cliente que responde, falha com 503 ou 404, demora ou fica preso conforme o comportamento configurado
+class UsuarioClientResilienteTest {
+
+    private static final String EMAIL = "cliente@loja.com";
+    private static final String TOKEN = "Bearer teste";
+
+    private static final int CHAMADAS_SIMULTANEAS = 2;
+    // Janela de 4 chamadas: o circuito avalia a taxa de falhas a partir da segunda
+    private static final int JANELA = 4;
+    private static final Duration CHAMADA_LENTA = Duration.ofMillis(200);
+    private static final Duration TTL_CACHE_OBSOLETO = Duration.ofMillis(500);
+
+    private final AtomicInteger chamadasAoServico = new AtomicInteger();
+    private final AtomicReference<Comportamento> comportamento = new AtomicReference<>(Comportamento.RESPONDE);
+    private final CountDownLatch liberarPresas = new CountDownLatch(1);
+
+    private enum Comportamento { RESPONDE, FALHA, NAO_ENCONTRADO, LENTO, PRESO }
+
+    private final UsuarioClient servico = (email, token) -> {
+        chamadasAoServico.incrementAndGet();
+        return switch (comportamento.get()) {
+            case RESPONDE -> usuario(email);
+            case FALHA -> throw erro(503);
+            case NAO_ENCONTRADO -> throw erro(404);
+            case LENTO -> {
+                dormir(CHAMADA_LENTA.multipliedBy(2));
+                yield usuario(email);
+            }
+            case PRESO -> {
+                aguardar(liberarPresas);
+                yield usuario(email);
+            }
+        };
+    };
+
+    @Test
+    void falhasAbremOCircuitoEUsamOUltimoUsuarioConhecido() {
+        UsuarioClientResiliente resiliente = criar(Duration.ofHours(1));
+        UsuarioResponseDTO conhecido = resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+
+        comportamento.set(Comportamento.FALHA);
+        for (int i = 0; i < JANELA; i++) {
+            assertThat(resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)).isSameAs(conhecido);
+        }
+        assertThat(resiliente.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Com o circuito aberto o serviço não é chamado e o fallback responde na hora
+        int chamadasAntes = chamadasAoServico.get();
+        assertThat(resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)).isSameAs(conhecido);
+        assertThat(chamadasAoServico.get()).isEqualTo(chamadasAntes);
+
+        // Sem valor conhecido para o email não há fallback
+        assertThatThrownBy(() -> resiliente.buscaUsuarioPorEmail("outro@loja.com", TOKEN))
+                .isInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    @Test
+    void chamadasLentasAbremOCircuito() {
+        UsuarioClientResiliente resiliente = criar(Duration.ofHours(1));
+        resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+
+        // Respostas acima do limite de chamada lenta, como um timeout que ainda não estourou; chegam ao
+        // chamador e atualizam o último valor conhecido
+        comportamento.set(Comportamento.LENTO);
+        for (int i = 0; i < JANELA / 2; i++) {
+            resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+        }
+        assertThat(resiliente.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        UsuarioResponseDTO conhecido = resiliente.getUltimosConhecidos().getIfPresent(EMAIL);
+        int chamadasAntes = chamadasAoServico.get();
+        assertThat(resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)).isSameAs(conhecido);
+        assertThat(chamadasAoServico.get()).isEqualTo(chamadasAntes);
+    }
+
+    @Test
+    void bulkheadRejeitaAsChamadasExcedentes() throws Exception {
+        UsuarioClientResiliente resiliente = criar(Duration.ofHours(1));
+        UsuarioResponseDTO conhecido = resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+
+        comportamento.set(Comportamento.PRESO);
+        ExecutorService executor = Executors.newFixedThreadPool(CHAMADAS_SIMULTANEAS);
+        List<Future<UsuarioResponseDTO>> presas = new ArrayList<>();
+        for (int i = 0; i < CHAMADAS_SIMULTANEAS; i++) {
+            presas.add(executor.submit(() -> resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)));
+        }
+        while (resiliente.getBulkhead().getMetrics().getAvailableConcurrentCalls() > 0) {
+            Thread.onSpinWait();
+        }
+
+        // Bulkhead cheio: a chamada excedente não espera nem chega ao serviço
+        int chamadasAntes = chamadasAoServico.get();
+        long inicio = System.nanoTime();
+        assertThat(resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)).isSameAs(conhecido);
+        assertThatThrownBy(() -> resiliente.buscaUsuarioPorEmail("outro@loja.com", TOKEN))
+                .isInstanceOf(ServicoIndisponivelException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(CHAMADA_LENTA);
+        assertThat(chamadasAoServico.get()).isEqualTo(chamadasAntes);
+
+        liberarPresas.countDown();
+        for (Future<UsuarioResponseDTO> presa : presas) {
+            assertThat(presa.get(10, TimeUnit.SECONDS).getEmail()).isEqualTo(EMAIL);
+        }
+        executor.shutdown();
+
+        // Bulkhead cheio não conta como falha do serviço
+        assertThat(resiliente.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void ultimoUsuarioConhecidoSoValeDentroDoTtl() {
+        UsuarioClientResiliente resiliente = criar(TTL_CACHE_OBSOLETO);
+        UsuarioResponseDTO conhecido = resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+
+        comportamento.set(Comportamento.FALHA);
+        assertThat(resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN)).isSameAs(conhecido);
+
+        dormir(TTL_CACHE_OBSOLETO.multipliedBy(2));
+        assertThatThrownBy(() -> resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN))
+                .isInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    @Test
+    void erro4xxChegaAoChamadorEDescartaOUltimoConhecido() {
+        UsuarioClientResiliente resiliente = criar(Duration.ofHours(1));
+        resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN);
+
+        comportamento.set(Comportamento.NAO_ENCONTRADO);
+        assertThatThrownBy(() -> resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN))
+                .isInstanceOf(FeignException.NotFound.class);
+        assertThat(resiliente.getUltimosConhecidos().getIfPresent(EMAIL)).isNull();
+        assertThat(resiliente.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // Depois do 404 uma falha do serviço não devolve o usuário removido
+        comportamento.set(Comportamento.FALHA);
+        assertThatThrownBy(() -> resiliente.buscaUsuarioPorEmail(EMAIL, TOKEN))
+                .isInstanceOf(ServicoIndisponivelException.class);
+    }
+
+    // Mesmos campos que o Spring preencheria com loja.usuario-client.*, com valores pequenos para o teste
+    private UsuarioClientResiliente criar(Duration ttlCacheObsoleto) {
+        UsuarioClientResiliente resiliente = new UsuarioClientResiliente(servico, new MetricasLoja(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(resiliente, "chamadasSimultaneas", CHAMADAS_SIMULTANEAS);
+        ReflectionTestUtils.setField(resiliente, "esperaMaximaBulkhead", Duration.ZERO);
+        ReflectionTestUtils.setField(resiliente, "taxaFalhas", 50f);
+        ReflectionTestUtils.setField(resiliente, "janela", JANELA);
+        ReflectionTestUtils.setField(resiliente, "chamadaLenta", CHAMADA_LENTA);
+        ReflectionTestUtils.setField(resiliente, "tempoAberto", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(resiliente, "ttlCacheObsoleto", ttlCacheObsoleto);
+        ReflectionTestUtils.setField(resiliente, "tamanhoMaximoCacheObsoleto", 100L);
+        resiliente.inicializar();
+        return resiliente;
+    }
+
+    private static UsuarioResponseDTO usuario(String email) {
+        return UsuarioResponseDTO.builder().email(email).senha("hash").role(Role.CLIENTE).build();
+    }
+
+    private static FeignException erro(int status) {
+        Request requisicao = Request.create(Request.HttpMethod.GET, "http://usuario/usuario/buscar-por-email",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("UsuarioClient#buscaUsuarioPorEmail", Response.builder()
+                .status(status)
+                .reason("erro " + status)
+                .request(requisicao)
+                .headers(Map.of())
+                .build());
+    }
+
+    private static void dormir(Duration duracao) {
+        try {
+            Thread.sleep(duracao.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}